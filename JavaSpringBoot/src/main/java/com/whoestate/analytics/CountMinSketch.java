@@ -0,0 +1,50 @@
+package com.whoestate.analytics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Count-Min sketch over string keys: estimates never undercount and overcount by at most about
+// e / width of the total with probability 1 - e^-depth. Cells are atomic, so concurrent adds need no lock.
+final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicIntegerArray cells;
+
+    CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.cells = new AtomicIntegerArray(depth * width);
+    }
+
+    // Returns the estimate for key after the increment
+    int add(String key) {
+        long hash = Hash64.of(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.incrementAndGet(cell(row, hash)));
+        }
+        return estimate;
+    }
+
+    int estimate(String key) {
+        long hash = Hash64.of(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.get(cell(row, hash)));
+        }
+        return estimate;
+    }
+
+    // Each row remixes the key hash with its own offset, so two keys that share a cell in one row are no more likely
+    // to share one in the next (deriving rows as h1 + row * h2 would make them collide in every row together)
+    private int cell(int row, long hash) {
+        long mixed = hash + row * 0x9E3779B97F4A7C15L;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xFF51AFD7ED558CCDL;
+        mixed ^= mixed >>> 33;
+        return row * (mask + 1) + (int) (mixed & mask);
+    }
+}
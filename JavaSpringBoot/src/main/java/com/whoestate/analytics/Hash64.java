@@ -0,0 +1,25 @@
+package com.whoestate.analytics;
+
+import java.nio.charset.StandardCharsets;
+
+// 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 fmix64 avalanche so every output bit is usable.
+// Stored unique-viewer sketches depend on it, so it must not change.
+final class Hash64 {
+
+    private Hash64() {
+    }
+
+    static long of(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
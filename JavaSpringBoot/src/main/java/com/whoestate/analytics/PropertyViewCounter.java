@@ -0,0 +1,142 @@
+package com.whoestate.analytics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.whoestate.dto.ViewCounterStatsDto;
+import com.whoestate.entity.Property;
+import com.whoestate.repository.PropertyRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Per-property view counts accumulated in memory and folded into Property.viewCount by a periodic batched $inc.
+// Each property has its own LongAdder, so hot listings spread their increments over striped cells instead of
+// contending on one counter. Entries are reset on flush, and an entry that saw no views since the previous flush is
+// retired, so the map only holds properties viewed recently whatever ids clients send. An increment can still race with
+// the retirement, so retired counters are summed once more on the following flush before they are dropped.
+// A graceful shutdown flushes everything. A crash loses at most the views counted since the last successful
+// flush, which is what pendingViews and lastFlushAt in the stats report.
+@Component
+public class PropertyViewCounter {
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private Cache<String, Property> propertyCache;
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> retired = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder flushedViews = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile LocalDateTime lastFlushAt;
+    private volatile long lastFlushMillis;
+
+    @Value("${app.views.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    public void increment(String propertyId, long views) {
+        counters.computeIfAbsent(propertyId, id -> new LongAdder()).add(views);
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public ViewCounterStatsDto stats() {
+        long pending = 0;
+        for (LongAdder adder : counters.values()) {
+            pending += adder.sum();
+        }
+        return new ViewCounterStatsDto(pending, counters.size(), flushedViews.sum(), failedFlushes.sum(),
+                flushIntervalMs, lastFlushMillis, lastFlushAt);
+    }
+
+    private void flushLocked() {
+        long started = System.nanoTime();
+        Map<String, Long> deltas = new HashMap<>();
+        retired.forEach((id, adder) -> addDelta(deltas, id, adder.sumThenReset()));
+        retired.clear();
+        List<String> idle = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            // Increments racing with sumThenReset land in the next flush rather than being lost
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                addDelta(deltas, entry.getKey(), delta);
+            } else {
+                idle.add(entry.getKey());
+            }
+        }
+        for (String id : idle) {
+            LongAdder adder = counters.get(id);
+            if (adder != null && counters.remove(id, adder)) {
+                retired.put(id, adder);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            propertyRepository.incrementViewCounts(deltas);
+        } catch (RuntimeException e) {
+            // Put the deltas back for the next flush; if the bulk write partly applied, those views count twice,
+            // which is preferred to losing them for an approximate counter
+            deltas.forEach(this::increment);
+            failedFlushes.increment();
+            System.err.println("View count flush failed, " + deltas.size() + " properties will be retried: " + e.getMessage());
+            return;
+        }
+
+        // Cached documents are replaced by a copy with the new count, so detail reads see it without a reload and
+        // readers already holding the old instance never see it change under them
+        deltas.forEach((id, delta) -> propertyCache.asMap().computeIfPresent(id, (key, property) -> {
+            Property updated = new Property();
+            BeanUtils.copyProperties(property, updated);
+            updated.setViewCount((property.getViewCount() != null ? property.getViewCount() : 0L) + delta);
+            return updated;
+        }));
+        flushedViews.add(deltas.values().stream().mapToLong(Long::longValue).sum());
+        lastFlushMillis = (System.nanoTime() - started) / 1_000_000;
+        lastFlushAt = LocalDateTime.now();
+    }
+
+    private static void addDelta(Map<String, Long> deltas, String id, long delta) {
+        if (delta != 0) {
+            deltas.merge(id, delta, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.whoestate.analytics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.dto.TrackViewIngestStatsDto;
+import com.whoestate.entity.TrackView;
+import com.whoestate.enums.TrackViewStorage;
+import com.whoestate.repository.TrackViewBucketRepository;
+import com.whoestate.repository.TrackViewRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Write-behind buffer for track views. Requests only append to a lock-free queue; a scheduled flusher drains it,
+// folds repeated (user, property) pairs seen in the same window into one counted entry and writes them as one unordered
+// bulk upsert. The size counter is reserved before enqueueing, so the queue can never exceed its capacity.
+// The derived counters (property view counts, unique viewers, rollups, trending) are fed only once a batch has been
+// written, so a failed flush loses the same views everywhere instead of leaving the counters ahead of the stored views.
+@Component
+public class TrackViewBuffer {
+
+    @Autowired
+    private TrackViewRepository trackViewRepository;
+
+    @Autowired
+    private TrackViewBucketRepository trackViewBucketRepository;
+
+    @Autowired
+    private PropertyViewCounter propertyViewCounter;
+
+    @Autowired
+    private UniqueViewerCounter uniqueViewerCounter;
+
+    @Autowired
+    private ViewRollupCounter viewRollupCounter;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Value("${app.trackviews.storage:documents}")
+    private String storage;
+
+    @Value("${app.trackviews.buffer.capacity:100000}")
+    private int capacity;
+
+    @Value("${app.trackviews.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    private final ConcurrentLinkedQueue<TrackViewEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushedEvents = new LongAdder();
+    private final LongAdder upserts = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private volatile long lastFlushMillis;
+    private volatile LocalDateTime lastFlushAt;
+
+    // Returns false, and counts a drop, when the queue is full
+    public boolean offer(String userId, String propertyId) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                dropped.increment();
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        queue.offer(new TrackViewEvent(userId, propertyId, LocalDateTime.now()));
+        accepted.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trackviews.flush-interval-ms:1000}")
+    public void flush() {
+        // A flush already in progress will pick up whatever arrived meanwhile
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            drain();
+            System.out.println("Track view buffer flushed on shutdown (" + size.get() + " left, " + dropped.sum() + " dropped in total)");
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public TrackViewIngestStatsDto stats() {
+        return new TrackViewIngestStatsDto(size.get(), capacity, accepted.sum(), dropped.sum(), flushedEvents.sum(),
+                upserts.sum(), failedEvents.sum(), lastFlushMillis, lastFlushAt);
+    }
+
+    private void drain() {
+        while (true) {
+            long started = System.nanoTime();
+            Map<String, TrackView> coalesced = new LinkedHashMap<>();
+            List<TrackViewEvent> batch = new ArrayList<>();
+            TrackViewEvent event;
+            while (coalesced.size() < flushBatchSize && (event = queue.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(event);
+                coalesced.merge(event.getUserId() + '\u0000' + event.getPropertyId(), toTrackView(event), TrackViewBuffer::merge);
+            }
+            if (coalesced.isEmpty()) {
+                return;
+            }
+
+            try {
+                if (TrackViewStorage.fromProperty(storage) == TrackViewStorage.Buckets) {
+                    trackViewBucketRepository.pushViews(coalesced.values());
+                } else {
+                    trackViewRepository.upsertViews(coalesced.values());
+                }
+                flushedEvents.add(batch.size());
+                upserts.add(coalesced.size());
+            } catch (RuntimeException e) {
+                // Views are best-effort analytics: count the loss rather than retry into a struggling database.
+                // Nothing was credited yet, so the derived counters skip these views as well
+                failedEvents.add(batch.size());
+                System.err.println("Track view flush failed, " + batch.size() + " views lost: " + e.getMessage());
+                batch.clear();
+            }
+            credit(batch);
+            lastFlushMillis = (System.nanoTime() - started) / 1_000_000;
+            lastFlushAt = LocalDateTime.now();
+        }
+    }
+
+    // Each view with its own timestamp, so the day and rollup buckets match when it was recorded
+    private void credit(List<TrackViewEvent> batch) {
+        for (TrackViewEvent event : batch) {
+            propertyViewCounter.increment(event.getPropertyId(), 1);
+            uniqueViewerCounter.record(event.getPropertyId(), event.getUserId(), event.getViewedAt().toLocalDate());
+            viewRollupCounter.record(event.getPropertyId(), event.getViewedAt());
+            trendingTracker.record(event.getPropertyId());
+        }
+    }
+
+    private static TrackView toTrackView(TrackViewEvent event) {
+        TrackView trackView = new TrackView();
+        trackView.setUserId(event.getUserId());
+        trackView.setPropertyId(event.getPropertyId());
+        trackView.setViewedAt(event.getViewedAt());
+        trackView.setViewCount(1L);
+        return trackView;
+    }
+
+    // Keeps the newest timestamp and adds up how many views the pair had in this window
+    private static TrackView merge(TrackView current, TrackView next) {
+        if (next.getViewedAt().isAfter(current.getViewedAt())) {
+            current.setViewedAt(next.getViewedAt());
+        }
+        current.setViewCount(current.getViewCount() + next.getViewCount());
+        return current;
+    }
+}
@@ -0,0 +1,275 @@
+package com.whoestate.analytics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.dto.RetentionStatsDto;
+import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewArchive;
+import com.whoestate.entity.TrackViewBucket;
+import com.whoestate.repository.TrackViewArchiveRepository;
+import com.whoestate.repository.TrackViewBucketRepository;
+import com.whoestate.repository.TrackViewRepository;
+import com.whoestate.repository.ViewRollupRepository;
+
+// Retention for raw track views. Documents and buckets older than the configured age are folded into per-property,
+// per-month archive counts and then deleted, one batch at a time with a pause in between so the job never competes
+// with live traffic for long. Every node runs the job, so each batch is first claimed by stamping it with the run's
+// token; a run archives and deletes only what it claimed, and a claim left by a crashed run is taken over once it is
+// CLAIM_STALE_AFTER old, far longer than a batch takes. The archive is written before the batch is deleted: a crash in
+// between counts that batch twice when its claim is taken over rather than losing it. The delete only takes what is
+// still unchanged since the claim (a document whose viewedAt is still before the cutoff, a bucket with the same entry
+// count), so a flush landing in between is never deleted uncounted; whatever survived is taken back out of the
+// archive. A per-pair document keeps only its last view, so the pair's whole viewCount is credited to the month of
+// that last view.
+// Hour rollups and reset tokens expire through TTL indexes instead.
+@Component
+public class TrackViewCompactor {
+
+    private static final Duration CLAIM_STALE_AFTER = Duration.ofHours(1);
+
+    @Autowired
+    private TrackViewRepository trackViewRepository;
+
+    @Autowired
+    private TrackViewBucketRepository trackViewBucketRepository;
+
+    @Autowired
+    private TrackViewArchiveRepository trackViewArchiveRepository;
+
+    @Autowired
+    private ViewRollupRepository viewRollupRepository;
+
+    @Value("${app.retention.trackviews.max-age-days:180}")
+    private int maxAgeDays;
+
+    @Value("${app.retention.hour-rollups.ttl-days:90}")
+    private int hourRollupTtlDays;
+
+    @Value("${app.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.retention.batch-pause-ms:200}")
+    private long batchPauseMs;
+
+    @Value("${app.retention.max-batches-per-run:500}")
+    private int maxBatchesPerRun;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder compactedTotal = new LongAdder();
+    private final LongAdder purgedTotal = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private volatile LocalDateTime lastCutoff;
+    private volatile long lastCompacted;
+    private volatile long lastPurged;
+    private volatile boolean lastRunComplete;
+    private volatile long lastRunMs;
+    private volatile LocalDateTime lastRunAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureExpiryIndexes() {
+        if (hourRollupTtlDays > 0) {
+            viewRollupRepository.ensureHourlyExpiry(Duration.ofDays(hourRollupTtlDays));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.retention.compaction-interval-ms:3600000}",
+            initialDelayString = "${app.retention.compaction-interval-ms:3600000}")
+    public void compact() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            runLocked();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    // Manual trigger; refuses rather than queueing behind a run already in progress
+    public RetentionStatsDto compactNow() {
+        if (!runLock.tryLock()) {
+            throw new TrackViewConflictException("Compaction is already running");
+        }
+        try {
+            runLocked();
+        } finally {
+            runLock.unlock();
+        }
+        return stats();
+    }
+
+    public RetentionStatsDto stats() {
+        return new RetentionStatsDto(maxAgeDays, hourRollupTtlDays, runs.sum(), compactedTotal.sum(), purgedTotal.sum(),
+                failedRuns.sum(), lastCutoff, lastCompacted, lastPurged, lastRunComplete, lastRunMs, lastRunAt);
+    }
+
+    private void runLocked() {
+        if (maxAgeDays <= 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        String token = UUID.randomUUID().toString();
+        LocalDateTime cutoff = LocalDateTime.now().toLocalDate().minusDays(maxAgeDays).atStartOfDay();
+        long[] totals = new long[2];
+        boolean complete = false;
+        try {
+            int batches = 0;
+            boolean documentsLeft = true;
+            boolean bucketsLeft = true;
+            while ((documentsLeft || bucketsLeft) && batches < maxBatchesPerRun) {
+                if (documentsLeft) {
+                    documentsLeft = compactDocuments(cutoff, token, totals);
+                    batches++;
+                }
+                if (bucketsLeft && batches < maxBatchesPerRun) {
+                    bucketsLeft = compactBuckets(cutoff, token, totals);
+                    batches++;
+                }
+                if ((documentsLeft || bucketsLeft) && !pause()) {
+                    break;
+                }
+            }
+            complete = !documentsLeft && !bucketsLeft;
+        } catch (RuntimeException e) {
+            failedRuns.increment();
+            System.err.println("Track view compaction failed after " + totals[1] + " documents: " + e.getMessage());
+        }
+
+        runs.increment();
+        compactedTotal.add(totals[0]);
+        purgedTotal.add(totals[1]);
+        lastCutoff = cutoff;
+        lastCompacted = totals[0];
+        lastPurged = totals[1];
+        lastRunComplete = complete;
+        lastRunMs = (System.nanoTime() - started) / 1_000_000;
+        lastRunAt = LocalDateTime.now();
+        if (totals[1] > 0) {
+            System.out.println("Track view compaction folded " + totals[0] + " views and purged " + totals[1]
+                    + " documents older than " + cutoff);
+        }
+    }
+
+    // Returns whether a batch was claimed, i.e. more old documents may remain
+    private boolean compactDocuments(LocalDateTime cutoff, String token, long[] totals) {
+        List<TrackView> batch = trackViewRepository.claimViewedBefore(cutoff, token, CLAIM_STALE_AFTER, batchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        Map<String, TrackViewArchive> deltas = new HashMap<>();
+        Map<String, TrackView> read = new HashMap<>();
+        for (TrackView view : batch) {
+            archive(deltas, view.getPropertyId(), YearMonth.from(view.getViewedAt()).toString(), viewsOf(view), 1);
+            read.put(view.getId(), view);
+        }
+        trackViewArchiveRepository.incrementAll(deltas.values());
+        long removed = trackViewRepository.deleteClaimed(read.keySet(), token, cutoff);
+
+        // Documents viewed again since the claim were kept, so their archived views are taken back
+        Map<String, TrackViewArchive> corrections = new HashMap<>();
+        if (removed < batch.size()) {
+            for (TrackView survivor : trackViewRepository.findAllById(read.keySet())) {
+                TrackView view = read.get(survivor.getId());
+                archive(corrections, view.getPropertyId(), YearMonth.from(view.getViewedAt()).toString(), -viewsOf(view), -1);
+                read.remove(survivor.getId());
+            }
+            trackViewArchiveRepository.incrementAll(corrections.values());
+        }
+        for (TrackView view : read.values()) {
+            totals[0] += viewsOf(view);
+        }
+        totals[1] += removed;
+        return true;
+    }
+
+    private boolean compactBuckets(LocalDateTime cutoff, String token, long[] totals) {
+        List<TrackViewBucket> batch = trackViewBucketRepository.claimDaysBefore(cutoff.toLocalDate().toString(), token,
+                CLAIM_STALE_AFTER, batchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        Map<String, TrackViewArchive> deltas = new HashMap<>();
+        Map<String, TrackViewBucket> read = new HashMap<>();
+        for (TrackViewBucket bucket : batch) {
+            archive(deltas, bucket.getPropertyId(), bucket.getDay().substring(0, 7), viewsOf(bucket), entriesOf(bucket));
+            read.put(bucket.getId(), bucket);
+        }
+        trackViewArchiveRepository.incrementAll(deltas.values());
+        long removed = trackViewBucketRepository.deleteClaimed(batch, token);
+
+        // Buckets that received entries since the claim (a bucket migration copying old views) were kept
+        Map<String, TrackViewArchive> corrections = new HashMap<>();
+        if (removed < batch.size()) {
+            for (TrackViewBucket survivor : trackViewBucketRepository.findAllById(read.keySet())) {
+                TrackViewBucket bucket = read.get(survivor.getId());
+                archive(corrections, bucket.getPropertyId(), bucket.getDay().substring(0, 7), -viewsOf(bucket),
+                        -entriesOf(bucket));
+                read.remove(survivor.getId());
+            }
+            trackViewArchiveRepository.incrementAll(corrections.values());
+        }
+        for (TrackViewBucket bucket : read.values()) {
+            totals[0] += viewsOf(bucket);
+        }
+        totals[1] += removed;
+        return true;
+    }
+
+    private static long viewsOf(TrackView view) {
+        return view.getViewCount() != null ? view.getViewCount() : 1L;
+    }
+
+    private static long viewsOf(TrackViewBucket bucket) {
+        long views = 0;
+        if (bucket.getViews() != null) {
+            for (TrackViewBucket.Entry entry : bucket.getViews()) {
+                views += entry.getViews();
+            }
+        }
+        return views;
+    }
+
+    private static long entriesOf(TrackViewBucket bucket) {
+        return bucket.getViews() != null ? bucket.getViews().size() : 0;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void archive(Map<String, TrackViewArchive> deltas, String propertyId, String month, long views,
+                                long entries) {
+        TrackViewArchive delta = deltas.computeIfAbsent(TrackViewArchive.idOf(propertyId, month), id -> {
+            TrackViewArchive created = new TrackViewArchive();
+            created.setId(id);
+            created.setPropertyId(propertyId);
+            created.setMonth(month);
+            return created;
+        });
+        delta.setViews(delta.getViews() + views);
+        delta.setEntries(delta.getEntries() + entries);
+    }
+}
@@ -0,0 +1,10 @@
+package com.whoestate.analytics;
+
+// Thrown when a track view migration, rollup rebuild or compaction is refused because of what is already running or
+// stored, so the controller can answer 409 without turning unrelated IllegalStateExceptions into conflicts
+public class TrackViewConflictException extends RuntimeException {
+
+    public TrackViewConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package com.whoestate.analytics;
+
+import java.time.LocalDateTime;
+
+// One accepted POST /api/trackviews, waiting in the write-behind queue
+public final class TrackViewEvent {
+
+    private final String userId;
+    private final String propertyId;
+    private final LocalDateTime viewedAt;
+
+    public TrackViewEvent(String userId, String propertyId, LocalDateTime viewedAt) {
+        this.userId = userId;
+        this.propertyId = propertyId;
+        this.viewedAt = viewedAt;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public LocalDateTime getViewedAt() {
+        return viewedAt;
+    }
+}
@@ -0,0 +1,198 @@
+package com.whoestate.analytics;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// "Trending now" for the last hour and the last day. Each window is a ring of time slices; a slice is a Count-Min
+// sketch plus a bounded set of heavy-hitter candidates (properties whose estimate was among the highest seen in
+// that slice). A scheduled job rotates slices and scores the candidates of a window by summing their per-slice
+// estimates with exponential decay by slice age, keeping the top K. Requests only read that snapshot.
+@Component
+public class TrendingTracker {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 2048;
+
+    private final Window lastHour;
+    private final Window lastDay;
+
+    public TrendingTracker(@Value("${app.trending.top-k:50}") int topK,
+                           @Value("${app.trending.candidates-per-slice:500}") int candidatesPerSlice) {
+        this.lastHour = new Window(Duration.ofMinutes(5), 12, Duration.ofMinutes(20), topK, candidatesPerSlice);
+        this.lastDay = new Window(Duration.ofHours(1), 24, Duration.ofHours(6), topK, candidatesPerSlice);
+    }
+
+    public void record(String propertyId) {
+        lastHour.record(propertyId);
+        lastDay.record(propertyId);
+    }
+
+    // Precomputed by refresh(); constant time for callers
+    public List<TrendingScore> top(String window) {
+        return windowOf(window).snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval-ms:10000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        lastHour.refresh(now);
+        lastDay.refresh(now);
+    }
+
+    private Window windowOf(String window) {
+        if (window == null || window.isBlank() || "1h".equalsIgnoreCase(window)) {
+            return lastHour;
+        }
+        if ("24h".equalsIgnoreCase(window)) {
+            return lastDay;
+        }
+        throw new IllegalArgumentException("window must be 1h or 24h");
+    }
+
+    public static final class TrendingScore {
+        private final String propertyId;
+        private final long views;
+        private final double score;
+
+        private TrendingScore(String propertyId, long views, double score) {
+            this.propertyId = propertyId;
+            this.views = views;
+            this.score = score;
+        }
+
+        public String getPropertyId() {
+            return propertyId;
+        }
+
+        // Estimated views inside the window, before decay
+        public long getViews() {
+            return views;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static final class Slice {
+        private final long start;
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final ConcurrentHashMap<String, Integer> candidates = new ConcurrentHashMap<>();
+
+        private Slice(long start) {
+            this.start = start;
+        }
+    }
+
+    private static final class Window {
+        private final long sliceMillis;
+        private final int sliceCount;
+        private final double decayPerMilli;
+        private final int topK;
+        private final int candidatesPerSlice;
+
+        private volatile Slice current;
+        // Completed slices, newest first; only touched by the refresh job
+        private final Deque<Slice> completed = new ArrayDeque<>();
+        private volatile List<TrendingScore> snapshot = List.of();
+
+        private Window(Duration slice, int sliceCount, Duration halfLife, int topK, int candidatesPerSlice) {
+            this.sliceMillis = slice.toMillis();
+            this.sliceCount = sliceCount;
+            this.decayPerMilli = Math.log(2) / halfLife.toMillis();
+            this.topK = topK;
+            this.candidatesPerSlice = candidatesPerSlice;
+            this.current = new Slice(sliceStart(System.currentTimeMillis()));
+        }
+
+        private void record(String propertyId) {
+            Slice slice = current;
+            int estimate = slice.sketch.add(propertyId);
+            slice.candidates.merge(propertyId, estimate, Math::max);
+        }
+
+        private void refresh(long now) {
+            long start = sliceStart(now);
+            if (current.start != start) {
+                // Views racing with the swap may land in the old slice; they still count once it is completed
+                Slice finished = current;
+                current = new Slice(start);
+                prune(finished);
+                completed.addFirst(finished);
+            }
+            // Drop slices that fell out of the window, including after a stall that skipped several rotations
+            long oldest = start - (sliceCount - 1) * sliceMillis;
+            while (!completed.isEmpty() && (completed.size() > sliceCount - 1 || completed.peekLast().start < oldest)) {
+                completed.removeLast();
+            }
+            prune(current);
+            snapshot = score(now);
+        }
+
+        // Keeps the candidate set bounded: only the highest estimates of a slice can be heavy hitters
+        private void prune(Slice slice) {
+            int excess = slice.candidates.size() - candidatesPerSlice;
+            if (excess <= 0) {
+                return;
+            }
+            PriorityQueue<Map.Entry<String, Integer>> lowest = new PriorityQueue<>(excess + 1,
+                    Map.Entry.<String, Integer>comparingByValue().reversed());
+            for (Map.Entry<String, Integer> entry : slice.candidates.entrySet()) {
+                lowest.add(Map.entry(entry.getKey(), entry.getValue()));
+                if (lowest.size() > excess) {
+                    lowest.poll();
+                }
+            }
+            for (Map.Entry<String, Integer> entry : lowest) {
+                slice.candidates.remove(entry.getKey());
+            }
+        }
+
+        private List<TrendingScore> score(long now) {
+            List<Slice> slices = new ArrayList<>(sliceCount);
+            slices.add(current);
+            slices.addAll(completed);
+            Set<String> candidates = new HashSet<>();
+            for (Slice slice : slices) {
+                candidates.addAll(slice.candidates.keySet());
+            }
+
+            PriorityQueue<TrendingScore> top = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(TrendingScore::getScore));
+            for (String propertyId : candidates) {
+                long views = 0;
+                double score = 0;
+                for (Slice slice : slices) {
+                    int estimate = slice.sketch.estimate(propertyId);
+                    views += estimate;
+                    // Weighted by the age of the slice midpoint
+                    long age = Math.max(0, now - (slice.start + sliceMillis / 2));
+                    score += estimate * Math.exp(-decayPerMilli * age);
+                }
+                top.add(new TrendingScore(propertyId, views, score));
+                if (top.size() > topK) {
+                    top.poll();
+                }
+            }
+            List<TrendingScore> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(TrendingScore::getScore).reversed());
+            return List.copyOf(ranked);
+        }
+
+        private long sliceStart(long millis) {
+            return millis - Math.floorMod(millis, sliceMillis);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.whoestate.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.dto.UniqueViewersDto;
+import com.whoestate.entity.UniqueViewerSketch;
+import com.whoestate.repository.UniqueViewerSketchRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Unique viewers per property per day as HyperLogLog sketches. Views go into small in-memory sketches that are
+// merged into the stored ones on each flush; queries union the stored days with whatever is still pending here,
+// so answers never touch the raw track views.
+@Component
+public class UniqueViewerCounter {
+
+    @Autowired
+    private UniqueViewerSketchRepository uniqueViewerSketchRepository;
+
+    private final ConcurrentHashMap<String, PendingSketch> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public void record(String propertyId, String userId, LocalDate day) {
+        String key = UniqueViewerSketch.idOf(propertyId, day.toString());
+        // compute holds the bin lock, which serializes adds to the same sketch
+        pending.compute(key, (k, sketch) -> {
+            PendingSketch target = sketch != null ? sketch : new PendingSketch(propertyId, day.toString());
+            target.hll.add(userId);
+            return target;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.uniques.flush-interval-ms:10000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public UniqueViewersDto uniques(String propertyId, LocalDate from, LocalDate to) {
+        Map<String, HyperLogLog> byDay = new TreeMap<>();
+        for (UniqueViewerSketch stored : uniqueViewerSketchRepository.findByPropertyIdAndDayRange(propertyId, from.toString(), to.toString())) {
+            byDay.put(stored.getDay(), HyperLogLog.fromBytes(stored.getSketch()));
+        }
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            HyperLogLog unflushed = snapshot(UniqueViewerSketch.idOf(propertyId, day.toString()));
+            if (unflushed != null) {
+                byDay.merge(day.toString(), unflushed, (stored, extra) -> {
+                    stored.merge(extra);
+                    return stored;
+                });
+            }
+        }
+
+        HyperLogLog total = new HyperLogLog();
+        Map<String, Long> daily = new TreeMap<>();
+        byDay.forEach((day, sketch) -> {
+            daily.put(day, sketch.estimate());
+            total.merge(sketch);
+        });
+        return new UniqueViewersDto(propertyId, from, to, total.estimate(), daily);
+    }
+
+    private HyperLogLog snapshot(String key) {
+        HyperLogLog[] copy = new HyperLogLog[1];
+        pending.computeIfPresent(key, (k, sketch) -> {
+            copy[0] = sketch.hll.copy();
+            return sketch;
+        });
+        return copy[0];
+    }
+
+    private void flushLocked() {
+        List<String> keys = new ArrayList<>(pending.keySet());
+        for (String key : keys) {
+            PendingSketch sketch = pending.remove(key);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                uniqueViewerSketchRepository.mergeSketch(sketch.propertyId, sketch.day, sketch.hll);
+            } catch (RuntimeException e) {
+                // Merge it back; sketches are idempotent, so retrying next time cannot inflate the estimate
+                pending.merge(key, sketch, (current, failed) -> {
+                    current.hll.merge(failed.hll);
+                    return current;
+                });
+                System.err.println("Unique viewer flush failed for " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class PendingSketch {
+        private final String propertyId;
+        private final String day;
+        private final HyperLogLog hll = new HyperLogLog();
+
+        private PendingSketch(String propertyId, String day) {
+            this.propertyId = propertyId;
+            this.day = day;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.whoestate.analytics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.entity.ViewRollup;
+import com.whoestate.enums.RollupGranularity;
+import com.whoestate.repository.ViewRollupRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Keeps the hour, day and month rollups current: each view adds one to its bucket for the property and for "*".
+// Deltas are summed in memory and written as one bulk of $inc upserts per flush. Flushed keys are removed, so the
+// map only ever holds the buckets touched since the last flush.
+@Component
+public class ViewRollupCounter {
+
+    @Autowired
+    private ViewRollupRepository viewRollupRepository;
+
+    private final ConcurrentHashMap<String, ViewRollup> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public void record(String propertyId, LocalDateTime viewedAt) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucket = granularity.truncate(viewedAt);
+            add(granularity, propertyId, bucket, 1);
+            add(granularity, ViewRollup.ALL_PROPERTIES, bucket, 1);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollups.flush-interval-ms:5000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        List<ViewRollup> deltas = new ArrayList<>();
+        for (String key : new ArrayList<>(pending.keySet())) {
+            ViewRollup delta = pending.remove(key);
+            if (delta != null) {
+                deltas.add(delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            viewRollupRepository.incrementAll(deltas);
+        } catch (RuntimeException e) {
+            for (ViewRollup delta : deltas) {
+                add(delta.getGranularity(), delta.getPropertyId(), delta.getBucket(), delta.getViews());
+            }
+            System.err.println("View rollup flush failed, " + deltas.size() + " buckets will be retried: " + e.getMessage());
+        }
+    }
+
+    // compute holds the bin lock, so an add can never land on a delta that flush has already removed
+    private void add(RollupGranularity granularity, String propertyId, LocalDateTime bucket, long views) {
+        pending.compute(ViewRollup.idOf(granularity, propertyId, bucket), (id, delta) -> {
+            if (delta == null) {
+                delta = new ViewRollup();
+                delta.setId(id);
+                delta.setGranularity(granularity);
+                delta.setPropertyId(propertyId);
+                delta.setBucket(bucket);
+            }
+            delta.setViews(delta.getViews() + views);
+            return delta;
+        });
+    }
+}
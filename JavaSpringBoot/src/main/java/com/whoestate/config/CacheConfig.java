@@ -0,0 +1,28 @@
+package com.whoestate.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.whoestate.entity.Property;
+
+@Configuration
+public class CacheConfig {
+
+    // Per node. Writes handled here invalidate their entries at once and the search catch-up drops entries for
+    // properties changed on other nodes; a delete on another node leaves nothing to catch up on, so that property is
+    // served from here until the entry expires after the ttl
+    @Bean
+    public Cache<String, Property> propertyCache(@Value("${app.cache.property.max-size:10000}") long maxSize,
+                                                 @Value("${app.cache.property.ttl:10m}") Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -1,8 +1,7 @@
 package com.whoestate.controller;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,12 +11,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.whoestate.dto.CreateClientIntakeDto;
 import com.whoestate.entity.ClientIntake;
 import com.whoestate.service.ClientIntakeService;
+import com.whoestate.util.JsonStreaming;
 
 import jakarta.validation.Valid;
 
@@ -29,11 +32,15 @@ public class ClientIntakeController {
     @Autowired
     private ClientIntakeService clientIntakeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasRole('Admin')")
-    public ResponseEntity<List<ClientIntake>> getAllClientIntakes() {
-        List<ClientIntake> clientIntakes = clientIntakeService.findAll();
-        return ResponseEntity.ok(clientIntakes);
+    public ResponseEntity<StreamingResponseBody> getAllClientIntakes(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return ResponseEntity.ok()
+                .contentType(JsonStreaming.contentType(accept))
+                .body(JsonStreaming.body(objectMapper, accept, clientIntakeService::streamAll));
     }
 
     @GetMapping("/{id}")
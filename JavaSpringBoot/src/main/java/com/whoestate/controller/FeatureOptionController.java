@@ -3,11 +3,13 @@ package com.whoestate.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -15,11 +17,14 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.whoestate.dto.CreateFeatureOptionDto;
 import com.whoestate.dto.UpdateFeatureOptionDto;
 import com.whoestate.entity.FeatureOption;
 import com.whoestate.service.FeatureOptionService;
+import com.whoestate.util.CollectionVersion;
+import com.whoestate.util.Etags;
 
 import jakarta.validation.Valid;
 
@@ -32,7 +37,10 @@ public class FeatureOptionController {
     private FeatureOptionService featureOptionService;
 
     @GetMapping
-    public ResponseEntity<List<FeatureOption>> getAllFeatureOptions() {
+    public ResponseEntity<List<FeatureOption>> getAllFeatureOptions(WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
         List<FeatureOption> featureOptions = featureOptionService.findActiveFeatures();
         return ResponseEntity.ok(featureOptions);
     }
@@ -40,11 +48,16 @@ public class FeatureOptionController {
     @GetMapping("/{id}")
     public ResponseEntity<FeatureOption> getFeatureOption(@PathVariable String id) {
         FeatureOption featureOption = featureOptionService.findById(id);
-        if (featureOption != null) {
-            return ResponseEntity.ok(featureOption);
-        } else {
+        if (featureOption == null) {
             return ResponseEntity.notFound().build();
         }
+        if (featureOption.getUpdatedAt() == null) {
+            return ResponseEntity.ok(featureOption);
+        }
+        return ResponseEntity.ok()
+                .eTag(Etags.forDocument(featureOption.getId(), featureOption.getUpdatedAt()))
+                .lastModified(Etags.toEpochMilli(featureOption.getUpdatedAt()))
+                .body(featureOption);
     }
 
     @PostMapping
@@ -79,8 +92,24 @@ public class FeatureOptionController {
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<FeatureOption>> getFeatureOptionsByCategory(@PathVariable String category) {
+    public ResponseEntity<List<FeatureOption>> getFeatureOptionsByCategory(@PathVariable String category, WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
         List<FeatureOption> featureOptions = featureOptionService.findByCategory(category);
         return ResponseEntity.ok(featureOptions);
     }
+
+    private boolean isCollectionNotModified(WebRequest request) {
+        CollectionVersion version = featureOptionService.collectionVersion();
+        return request.checkNotModified(version.etagFor(request.getDescription(false), request.getParameterMap()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleConflict(OptimisticLockingFailureException e) {
+        String error = e.getMessage();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new Object() {
+            public String message = error;
+        });
+    }
 }
\ No newline at end of file
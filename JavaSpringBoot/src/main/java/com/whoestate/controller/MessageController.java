@@ -3,23 +3,43 @@ package com.whoestate.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.whoestate.dto.CreateMessageDto;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.MessageSearchStatsDto;
+import com.whoestate.dto.MessageStreamStatsDto;
+import com.whoestate.entity.InboxEntry;
 import com.whoestate.entity.Message;
+import com.whoestate.entity.User;
+import com.whoestate.messaging.TooManyStreamsException;
+import com.whoestate.search.IndexNotReadyException;
 import com.whoestate.service.MessageService;
+import com.whoestate.service.UserService;
+import com.whoestate.util.JsonStreaming;
 
 import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -29,11 +49,18 @@ public class MessageController {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasRole('Admin')")
-    public ResponseEntity<List<Message>> getAllMessages() {
-        List<Message> messages = messageService.findAll();
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<StreamingResponseBody> getAllMessages(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return ResponseEntity.ok()
+                .contentType(JsonStreaming.contentType(accept))
+                .body(JsonStreaming.body(objectMapper, accept, messageService::streamAll));
     }
 
     @GetMapping("/{id}")
@@ -82,9 +109,175 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
 
+    // Only the two participants, whose ids lead the conversation id, may read it
+    @GetMapping("/conversations/{conversationId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPage<Message>> getConversation(@PathVariable String conversationId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size,
+                                                               Authentication authentication) {
+        String[] parts = conversationId.split(":");
+        String userId = currentUserId(authentication);
+        if (parts.length < 2 || !(parts[0].equals(userId) || parts[1].equals(userId))) {
+            throw new AccessDeniedException("Not allowed to access another user's messages");
+        }
+        return ResponseEntity.ok(messageService.findConversation(conversationId, cursor, size));
+    }
+
+    // The caller's own inbox, with the user taken from the token
+    @GetMapping("/inbox")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPage<InboxEntry>> getMyInbox(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             Authentication authentication) {
+        return ResponseEntity.ok(messageService.inbox(currentUserId(authentication), cursor, size));
+    }
+
+    @GetMapping("/inbox/unread")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getMyUnreadCount(Authentication authentication) {
+        long count = messageService.unreadCount(currentUserId(authentication));
+        return ResponseEntity.ok(new Object() {
+            public long unread = count;
+        });
+    }
+
+    @GetMapping("/inbox/{userId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPage<InboxEntry>> getInbox(@PathVariable String userId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size,
+                                                           Authentication authentication) {
+        requireSelf(userId, authentication);
+        return ResponseEntity.ok(messageService.inbox(userId, cursor, size));
+    }
+
+    @GetMapping("/inbox/{userId}/unread")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getUnreadCount(@PathVariable String userId, Authentication authentication) {
+        requireSelf(userId, authentication);
+        long count = messageService.unreadCount(userId);
+        return ResponseEntity.ok(new Object() {
+            public long unread = count;
+        });
+    }
+
+    @PostMapping("/inbox/{userId}/conversations/{conversationId}/read")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> markConversationRead(@PathVariable String userId, @PathVariable String conversationId,
+                                                  @RequestParam(required = false) String upTo,
+                                                  Authentication authentication) {
+        requireSelf(userId, authentication);
+        long count = messageService.markConversationRead(userId, conversationId, upTo);
+        return ResponseEntity.ok(new Object() {
+            public long marked = count;
+        });
+    }
+
+    // Fire-and-forget receipt for one message; receipts are batched and applied within the flush interval
+    @PostMapping("/inbox/{userId}/conversations/{conversationId}/receipts")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> recordReadReceipt(@PathVariable String userId, @PathVariable String conversationId,
+                                               @RequestParam String messageId, Authentication authentication) {
+        requireSelf(userId, authentication);
+        messageService.recordReadReceipt(userId, conversationId, messageId);
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping("/inbox/rebuild")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<?> rebuildInbox() {
+        long count = messageService.rebuildInbox();
+        return ResponseEntity.ok(new Object() {
+            public long entries = count;
+        });
+    }
+
+    // Server-sent events: "message" events carry new messages, comments keep idle connections alive. Reconnecting with
+    // the Last-Event-ID header replays what was missed; a "reset" event means too much was missed to replay.
+    // Only the user themselves may open their stream
+    @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public Flux<ServerSentEvent<Message>> streamMessages(@PathVariable String userId,
+                                                         @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                         Authentication authentication) {
+        requireSelf(userId, authentication);
+        return messageService.stream(userId, lastEventId);
+    }
+
+    @GetMapping("/stream/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<MessageStreamStatsDto> getStreamStats() {
+        return ResponseEntity.ok(messageService.streamStats());
+    }
+
+    // Across all messages; users search their own through /search/{userId}
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<List<Message>> searchMessages(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(messageService.search(q, null, fuzzy, limit));
+    }
+
+    @GetMapping("/search/{userId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<Message>> searchUserMessages(@PathVariable String userId, @RequestParam String q,
+                                                            @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            Authentication authentication) {
+        requireSelf(userId, authentication);
+        return ResponseEntity.ok(messageService.search(q, userId, fuzzy, limit));
+    }
+
+    @GetMapping("/search/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<MessageSearchStatsDto> getSearchStats() {
+        return ResponseEntity.ok(messageService.searchStats());
+    }
+
     @GetMapping("/conversation/{senderId}/{receiverId}")
     public ResponseEntity<List<Message>> getMessagesBetweenUsers(@PathVariable String senderId, @PathVariable String receiverId) {
         List<Message> messages = messageService.findBySenderIdAndReceiverId(senderId, receiverId);
         return ResponseEntity.ok(messages);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleBadRequest(IllegalArgumentException e) {
+        String error = e.getMessage();
+        return ResponseEntity.badRequest().body(new Object() {
+            public String message = error;
+        });
+    }
+
+    @ExceptionHandler(TooManyStreamsException.class)
+    public ResponseEntity<?> handleTooManyStreams(TooManyStreamsException e) {
+        String error = e.getMessage();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new Object() {
+            public String message = error;
+        });
+    }
+
+    @ExceptionHandler(IndexNotReadyException.class)
+    public ResponseEntity<?> handleIndexNotReady(IndexNotReadyException e) {
+        String error = e.getMessage();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(new Object() {
+            public String message = error;
+        });
+    }
+
+    private void requireSelf(String userId, Authentication authentication) {
+        if (!currentUserId(authentication).equals(userId)) {
+            throw new AccessDeniedException("Not allowed to access another user's messages");
+        }
+    }
+
+    // Tokens carry the user's email while messages refer to user ids, so the id is looked up from the email
+    private String currentUserId(Authentication authentication) {
+        User user = userService.findByEmail(authentication.getName());
+        if (user == null) {
+            throw new AccessDeniedException("Not allowed to access another user's messages");
+        }
+        return user.getId();
+    }
+}
@@ -1,25 +1,51 @@
 package com.whoestate.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whoestate.dto.CacheStatsDto;
 import com.whoestate.dto.CreatePropertyDto;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.ImportReportDto;
+import com.whoestate.dto.ModerationRequestDto;
+import com.whoestate.dto.ModerationResultDto;
+import com.whoestate.dto.PropertyFacetsDto;
+import com.whoestate.dto.PropertySearchDto;
+import com.whoestate.dto.PropertySummary;
+import com.whoestate.dto.TrendingPropertyDto;
 import com.whoestate.dto.UpdatePropertyDto;
 import com.whoestate.entity.Property;
+import com.whoestate.enums.ImportFormat;
+import com.whoestate.enums.PropertyView;
+import com.whoestate.search.IndexNotReadyException;
+import com.whoestate.service.PropertyImportService;
 import com.whoestate.service.PropertyService;
+import com.whoestate.util.CollectionVersion;
+import com.whoestate.util.Etags;
+import com.whoestate.util.JsonStreaming;
 
 import jakarta.validation.Valid;
 
@@ -31,20 +57,94 @@ public class PropertyController {
     @Autowired
     private PropertyService propertyService;
 
+    @Autowired
+    private PropertyImportService propertyImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Property>> getAllProperties() {
-        List<Property> properties = propertyService.findApprovedProperties();
-        return ResponseEntity.ok(properties);
+    public ResponseEntity<CursorPage<?>> getAllProperties(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestParam(required = false) String view,
+                                                          WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
+        PropertyView propertyView = PropertyView.fromParam(view);
+        CursorPage<Property> properties = propertyService.findApprovedProperties(cursor, size, propertyView);
+        return ResponseEntity.ok(toView(properties, propertyView));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<?>> searchProperties(@Valid PropertySearchDto searchDto,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestParam(required = false) String view,
+                                                          WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
+        PropertyView propertyView = PropertyView.fromParam(view);
+        CursorPage<Property> properties = propertyService.search(searchDto, cursor, size, propertyView);
+        return ResponseEntity.ok(toView(properties, propertyView));
+    }
+
+    @GetMapping("/fulltext")
+    public ResponseEntity<List<?>> fullTextSearch(@RequestParam("q") String query,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String view,
+                                                  WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
+        PropertyView propertyView = PropertyView.fromParam(view);
+        List<Property> properties = propertyService.fullTextSearch(query, limit, propertyView);
+        if (propertyView == PropertyView.Full) {
+            return ResponseEntity.ok(properties);
+        }
+        return ResponseEntity.ok(properties.stream().map(PropertySummary::from).toList());
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<PropertyFacetsDto> getFacets() {
+        return ResponseEntity.ok(propertyService.facets());
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingPropertyDto>> getTrending(@RequestParam(required = false) String window,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(propertyService.trending(window, limit));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<StreamingResponseBody> exportProperties(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return ResponseEntity.ok()
+                .contentType(JsonStreaming.contentType(accept))
+                .body(JsonStreaming.body(objectMapper, accept, propertyService::streamAll));
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<CacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(propertyService.cacheStats());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Property> getProperty(@PathVariable String id) {
         Property property = propertyService.findById(id);
-        if (property != null) {
-            return ResponseEntity.ok(property);
-        } else {
+        if (property == null) {
             return ResponseEntity.notFound().build();
         }
+        if (property.getUpdatedAt() == null) {
+            return ResponseEntity.ok(property);
+        }
+        // Spring answers If-None-Match with 304 from this header. viewCount moves without touching updatedAt, so it is
+        // part of the tag and there is no Last-Modified that would keep validating an outdated count
+        return ResponseEntity.ok()
+                .eTag(Etags.forDocument(property.getId(), property.getUpdatedAt(), property.getViewCount()))
+                .body(property);
     }
 
     @PostMapping
@@ -54,6 +154,20 @@ public class PropertyController {
         return ResponseEntity.status(HttpStatus.CREATED).body(property);
     }
 
+    // Body is read as it arrives; send Content-Type text/csv (header row first) or application/x-ndjson
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportReportDto> importProperties(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            InputStream body) throws IOException {
+        return ResponseEntity.ok(propertyImportService.importProperties(body, ImportFormat.fromContentType(contentType)));
+    }
+
+    @PostMapping("/moderation")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<ModerationResultDto> moderateProperties(@Valid @RequestBody ModerationRequestDto moderationRequestDto) {
+        return ResponseEntity.ok(propertyService.moderate(moderationRequestDto));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Property> updateProperty(@PathVariable String id, @Valid @RequestBody UpdatePropertyDto updatePropertyDto) {
@@ -80,20 +194,78 @@ public class PropertyController {
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<Property>> getPropertiesByUserId(@PathVariable String userId) {
-        List<Property> properties = propertyService.findByUserId(userId);
-        return ResponseEntity.ok(properties);
+    public ResponseEntity<CursorPage<?>> getPropertiesByUserId(@PathVariable String userId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size,
+                                                               @RequestParam(required = false) String view,
+                                                               WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
+        PropertyView propertyView = PropertyView.fromParam(view);
+        CursorPage<Property> properties = propertyService.findByUserId(userId, cursor, size, propertyView);
+        return ResponseEntity.ok(toView(properties, propertyView));
     }
 
     @GetMapping("/city/{city}")
-    public ResponseEntity<List<Property>> getPropertiesByCity(@PathVariable String city) {
-        List<Property> properties = propertyService.findByCity(city);
-        return ResponseEntity.ok(properties);
+    public ResponseEntity<CursorPage<?>> getPropertiesByCity(@PathVariable String city,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(required = false) String view,
+                                                             WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
+        PropertyView propertyView = PropertyView.fromParam(view);
+        CursorPage<Property> properties = propertyService.findByCity(city, cursor, size, propertyView);
+        return ResponseEntity.ok(toView(properties, propertyView));
     }
 
     @GetMapping("/type/{propertyType}")
-    public ResponseEntity<List<Property>> getPropertiesByType(@PathVariable String propertyType) {
-        List<Property> properties = propertyService.findByPropertyType(propertyType);
-        return ResponseEntity.ok(properties);
+    public ResponseEntity<CursorPage<?>> getPropertiesByType(@PathVariable String propertyType,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(required = false) String view,
+                                                             WebRequest request) {
+        if (isCollectionNotModified(request)) {
+            return null;
+        }
+        PropertyView propertyView = PropertyView.fromParam(view);
+        CursorPage<Property> properties = propertyService.findByPropertyType(propertyType, cursor, size, propertyView);
+        return ResponseEntity.ok(toView(properties, propertyView));
+    }
+
+    // Checked before touching the documents; on a match Spring has already written the 304
+    private boolean isCollectionNotModified(WebRequest request) {
+        CollectionVersion version = propertyService.collectionVersion();
+        return request.checkNotModified(version.weakEtagFor(request.getDescription(false), request.getParameterMap()));
+    }
+
+    private CursorPage<?> toView(CursorPage<Property> page, PropertyView view) {
+        return view == PropertyView.Full ? page : page.map(PropertySummary::from);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleBadRequest(IllegalArgumentException e) {
+        String error = e.getMessage();
+        return ResponseEntity.badRequest().body(new Object() {
+            public String message = error;
+        });
+    }
+
+    @ExceptionHandler(IndexNotReadyException.class)
+    public ResponseEntity<?> handleIndexNotReady(IndexNotReadyException e) {
+        String error = e.getMessage();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(new Object() {
+            public String message = error;
+        });
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleConflict(OptimisticLockingFailureException e) {
+        String error = e.getMessage();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new Object() {
+            public String message = error;
+        });
     }
 }
\ No newline at end of file
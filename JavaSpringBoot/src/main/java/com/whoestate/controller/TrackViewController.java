@@ -1,35 +1,107 @@
 package com.whoestate.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whoestate.analytics.TrackViewConflictException;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.RetentionStatsDto;
+import com.whoestate.dto.TrackViewIngestStatsDto;
+import com.whoestate.dto.TrackViewStorageStatsDto;
+import com.whoestate.dto.UniqueViewersDto;
+import com.whoestate.dto.ViewCounterStatsDto;
+import com.whoestate.dto.ViewStatsDto;
 import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewArchive;
+import com.whoestate.enums.ImportFormat;
 import com.whoestate.service.TrackViewService;
+import com.whoestate.util.CsvWriter;
+import com.whoestate.util.JsonStreaming;
 
 @RestController
 @RequestMapping("/api/trackviews")
 @CrossOrigin(origins = "*")
 public class TrackViewController {
 
+    private static final List<String> CSV_HEADER = List.of("id", "userId", "propertyId", "viewedAt", "viewCount");
+
     @Autowired
     private TrackViewService trackViewService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasRole('Admin')")
-    public ResponseEntity<List<TrackView>> getAllTrackViews() {
-        // For now, we'll return an empty list or handle appropriately
-        return ResponseEntity.ok(List.of());
+    public ResponseEntity<CursorPage<TrackView>> getAllTrackViews(@RequestParam(required = false) String propertyId,
+                                                                  @RequestParam(required = false) String userId,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(trackViewService.findPage(propertyId, userId, from, to, cursor, size));
+    }
+
+    // Same filters as the listing, streamed off one Mongo cursor: CSV for Accept: text/csv, otherwise JSON or NDJSON
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<StreamingResponseBody> exportTrackViews(@RequestParam(required = false) String propertyId,
+                                                                  @RequestParam(required = false) String userId,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Supplier<Stream<TrackView>> source = trackViewService.export(propertyId, userId, from, to);
+        if (accept != null && accept.contains(ImportFormat.CSV.toString())) {
+            return ResponseEntity.ok()
+                    .contentType(ImportFormat.CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trackviews.csv\"")
+                    .body(CsvWriter.body(CSV_HEADER, TrackViewController::csvRecord, source));
+        }
+        return ResponseEntity.ok()
+                .contentType(JsonStreaming.contentType(accept))
+                .body(JsonStreaming.body(objectMapper, accept, source));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ViewStatsDto> getViewStats(@RequestParam(required = false) String propertyId,
+                                                     @RequestParam(required = false) String granularity,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(trackViewService.viewStats(propertyId, granularity, from, to));
+    }
+
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<?> rebuildViewStats(@RequestParam(required = false) String granularity,
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        long rebuilt = trackViewService.rebuildRollups(granularity, from, to);
+        return ResponseEntity.ok(new Object() {
+            public long buckets = rebuilt;
+        });
     }
 
     @GetMapping("/{id}")
@@ -42,10 +114,56 @@ public class TrackViewController {
         }
     }
 
+    // 202 once queued; 503 with Retry-After tells clients to back off while the buffer is full
     @PostMapping
-    public ResponseEntity<TrackView> createTrackView(@RequestParam String userId, @RequestParam String propertyId) {
-        TrackView trackView = trackViewService.create(userId, propertyId);
-        return ResponseEntity.ok(trackView);
+    public ResponseEntity<?> createTrackView(@RequestParam String userId, @RequestParam String propertyId) {
+        if (trackViewService.record(userId, propertyId)) {
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new Object() {
+                    public String message = "Track view queue is full";
+                });
+    }
+
+    @GetMapping("/ingest/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<TrackViewIngestStatsDto> getIngestStats() {
+        return ResponseEntity.ok(trackViewService.ingestStats());
+    }
+
+    @GetMapping("/storage/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<List<TrackViewStorageStatsDto>> getStorageStats(@RequestParam(required = false) String propertyId) {
+        return ResponseEntity.ok(trackViewService.storageStats(propertyId));
+    }
+
+    @PostMapping("/buckets/migrate")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<?> migrateToBuckets() {
+        long migrated = trackViewService.migrateToBuckets();
+        return ResponseEntity.ok(new Object() {
+            public long views = migrated;
+        });
+    }
+
+    @GetMapping("/retention/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<RetentionStatsDto> getRetentionStats() {
+        return ResponseEntity.ok(trackViewService.retentionStats());
+    }
+
+    @PostMapping("/retention/compact")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<RetentionStatsDto> compactTrackViews() {
+        return ResponseEntity.ok(trackViewService.compactNow());
+    }
+
+    @GetMapping("/counters/stats")
+    @PreAuthorize("hasRole('Admin')")
+    public ResponseEntity<ViewCounterStatsDto> getViewCounterStats() {
+        return ResponseEntity.ok(trackViewService.viewCounterStats());
     }
 
     @DeleteMapping("/{id}")
@@ -72,9 +190,43 @@ public class TrackViewController {
         return ResponseEntity.ok(trackViews);
     }
 
+    @GetMapping("/property/{propertyId}/uniques")
+    public ResponseEntity<UniqueViewersDto> getUniqueViewers(@PathVariable String propertyId,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(trackViewService.uniqueViewers(propertyId, from, to));
+    }
+
+    @GetMapping("/property/{propertyId}/archive")
+    public ResponseEntity<List<TrackViewArchive>> getArchivedViews(@PathVariable String propertyId) {
+        return ResponseEntity.ok(trackViewService.archive(propertyId));
+    }
+
     @GetMapping("/user/{userId}/property/{propertyId}")
     public ResponseEntity<List<TrackView>> getTrackViewsByUserAndProperty(@PathVariable String userId, @PathVariable String propertyId) {
         List<TrackView> trackViews = trackViewService.findByUserIdAndPropertyId(userId, propertyId);
         return ResponseEntity.ok(trackViews);
     }
+
+    private static List<String> csvRecord(TrackView view) {
+        return Arrays.asList(view.getId(), view.getUserId(), view.getPropertyId(),
+                view.getViewedAt() != null ? view.getViewedAt().toString() : null,
+                view.getViewCount() != null ? view.getViewCount().toString() : null);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleBadRequest(IllegalArgumentException e) {
+        String error = e.getMessage();
+        return ResponseEntity.badRequest().body(new Object() {
+            public String message = error;
+        });
+    }
+
+    @ExceptionHandler(TrackViewConflictException.class)
+    public ResponseEntity<?> handleConflict(TrackViewConflictException e) {
+        String error = e.getMessage();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new Object() {
+            public String message = error;
+        });
+    }
 }
\ No newline at end of file
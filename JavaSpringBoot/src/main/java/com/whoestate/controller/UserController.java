@@ -1,8 +1,7 @@
 package com.whoestate.controller;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,14 +12,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.whoestate.dto.CreateUserDto;
 import com.whoestate.dto.UpdatePasswordDto;
 import com.whoestate.dto.UpdateUserDto;
 import com.whoestate.entity.User;
 import com.whoestate.service.UserService;
+import com.whoestate.util.JsonStreaming;
 
 import jakarta.validation.Valid;
 
@@ -32,11 +35,15 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasRole('Admin')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<StreamingResponseBody> getAllUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return ResponseEntity.ok()
+                .contentType(JsonStreaming.contentType(accept))
+                .body(JsonStreaming.body(objectMapper, accept, userService::streamAll));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,89 @@
+package com.whoestate.dto;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+public class CacheStatsDto {
+    private long estimatedSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private double averageLoadPenaltyMs;
+
+    public CacheStatsDto(long estimatedSize, CacheStats stats) {
+        this.estimatedSize = estimatedSize;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.hitRate = stats.hitRate();
+        this.evictionCount = stats.evictionCount();
+        this.loadSuccessCount = stats.loadSuccessCount();
+        this.loadFailureCount = stats.loadFailureCount();
+        this.averageLoadPenaltyMs = stats.averageLoadPenalty() / 1_000_000.0;
+    }
+
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    public void setEstimatedSize(long estimatedSize) {
+        this.estimatedSize = estimatedSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public void setLoadSuccessCount(long loadSuccessCount) {
+        this.loadSuccessCount = loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public void setLoadFailureCount(long loadFailureCount) {
+        this.loadFailureCount = loadFailureCount;
+    }
+
+    public double getAverageLoadPenaltyMs() {
+        return averageLoadPenaltyMs;
+    }
+
+    public void setAverageLoadPenaltyMs(double averageLoadPenaltyMs) {
+        this.averageLoadPenaltyMs = averageLoadPenaltyMs;
+    }
+}
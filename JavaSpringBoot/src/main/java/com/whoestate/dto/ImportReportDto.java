@@ -0,0 +1,90 @@
+package com.whoestate.dto;
+
+import java.util.List;
+
+public class ImportReportDto {
+    private long rowsRead;
+    private long inserted;
+    private long failed;
+    private int batches;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private List<ImportRowError> errors;
+    private boolean errorsTruncated;
+
+    public ImportReportDto(long rowsRead, long inserted, long failed, int batches, long elapsedMs,
+                           List<ImportRowError> errors, boolean errorsTruncated) {
+        this.rowsRead = rowsRead;
+        this.inserted = inserted;
+        this.failed = failed;
+        this.batches = batches;
+        this.elapsedMs = elapsedMs;
+        this.rowsPerSecond = elapsedMs > 0 ? rowsRead * 1000.0 / elapsedMs : rowsRead;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public void setBatches(int batches) {
+        this.batches = batches;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<ImportRowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportRowError> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+}
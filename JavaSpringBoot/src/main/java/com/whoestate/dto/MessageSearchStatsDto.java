@@ -0,0 +1,27 @@
+package com.whoestate.dto;
+
+public class MessageSearchStatsDto {
+    private int messages;
+    private long postingBytes;
+
+    public MessageSearchStatsDto(int messages, long postingBytes) {
+        this.messages = messages;
+        this.postingBytes = postingBytes;
+    }
+
+    public int getMessages() {
+        return messages;
+    }
+
+    public void setMessages(int messages) {
+        this.messages = messages;
+    }
+
+    public long getPostingBytes() {
+        return postingBytes;
+    }
+
+    public void setPostingBytes(long postingBytes) {
+        this.postingBytes = postingBytes;
+    }
+}
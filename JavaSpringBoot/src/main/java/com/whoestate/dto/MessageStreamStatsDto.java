@@ -0,0 +1,68 @@
+package com.whoestate.dto;
+
+public class MessageStreamStatsDto {
+    private int connections;
+    private int users;
+    private long published;
+    private long overflowDisconnects;
+    private long readReceipts;
+    private long readReceiptWrites;
+
+    public MessageStreamStatsDto(int connections, int users, long published, long overflowDisconnects,
+                                 long readReceipts, long readReceiptWrites) {
+        this.connections = connections;
+        this.users = users;
+        this.published = published;
+        this.overflowDisconnects = overflowDisconnects;
+        this.readReceipts = readReceipts;
+        this.readReceiptWrites = readReceiptWrites;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public void setPublished(long published) {
+        this.published = published;
+    }
+
+    public long getOverflowDisconnects() {
+        return overflowDisconnects;
+    }
+
+    public void setOverflowDisconnects(long overflowDisconnects) {
+        this.overflowDisconnects = overflowDisconnects;
+    }
+
+    public long getReadReceipts() {
+        return readReceipts;
+    }
+
+    public void setReadReceipts(long readReceipts) {
+        this.readReceipts = readReceipts;
+    }
+
+    public long getReadReceiptWrites() {
+        return readReceiptWrites;
+    }
+
+    public void setReadReceiptWrites(long readReceiptWrites) {
+        this.readReceiptWrites = readReceiptWrites;
+    }
+}
@@ -0,0 +1,34 @@
+package com.whoestate.dto;
+
+import java.util.List;
+
+import com.whoestate.enums.ModerationAction;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class ModerationRequestDto {
+    @NotEmpty(message = "At least one id is required")
+    @Size(max = 1000, message = "At most 1000 ids per request")
+    private List<String> ids;
+
+    @NotNull(message = "Action must be approve, reject or delete")
+    private ModerationAction action;
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public ModerationAction getAction() {
+        return action;
+    }
+
+    public void setAction(ModerationAction action) {
+        this.action = action;
+    }
+}
@@ -0,0 +1,42 @@
+package com.whoestate.dto;
+
+import java.util.Map;
+
+import com.whoestate.enums.ModerationAction;
+import com.whoestate.enums.ModerationOutcome;
+
+public class ModerationResultDto {
+    private ModerationAction action;
+    private int changed;
+    private Map<String, ModerationOutcome> outcomes;
+
+    public ModerationResultDto(ModerationAction action, int changed, Map<String, ModerationOutcome> outcomes) {
+        this.action = action;
+        this.changed = changed;
+        this.outcomes = outcomes;
+    }
+
+    public ModerationAction getAction() {
+        return action;
+    }
+
+    public void setAction(ModerationAction action) {
+        this.action = action;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    public void setChanged(int changed) {
+        this.changed = changed;
+    }
+
+    public Map<String, ModerationOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(Map<String, ModerationOutcome> outcomes) {
+        this.outcomes = outcomes;
+    }
+}
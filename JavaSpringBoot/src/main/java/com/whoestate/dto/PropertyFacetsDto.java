@@ -0,0 +1,50 @@
+package com.whoestate.dto;
+
+import java.util.List;
+
+public class PropertyFacetsDto {
+    private List<FacetCount> city;
+    private List<FacetCount> district;
+    private List<FacetCount> propertyType;
+    private List<FacetCount> propertyStatus;
+
+    public PropertyFacetsDto(List<FacetCount> city, List<FacetCount> district,
+                             List<FacetCount> propertyType, List<FacetCount> propertyStatus) {
+        this.city = city;
+        this.district = district;
+        this.propertyType = propertyType;
+        this.propertyStatus = propertyStatus;
+    }
+
+    public List<FacetCount> getCity() {
+        return city;
+    }
+
+    public void setCity(List<FacetCount> city) {
+        this.city = city;
+    }
+
+    public List<FacetCount> getDistrict() {
+        return district;
+    }
+
+    public void setDistrict(List<FacetCount> district) {
+        this.district = district;
+    }
+
+    public List<FacetCount> getPropertyType() {
+        return propertyType;
+    }
+
+    public void setPropertyType(List<FacetCount> propertyType) {
+        this.propertyType = propertyType;
+    }
+
+    public List<FacetCount> getPropertyStatus() {
+        return propertyStatus;
+    }
+
+    public void setPropertyStatus(List<FacetCount> propertyStatus) {
+        this.propertyStatus = propertyStatus;
+    }
+}
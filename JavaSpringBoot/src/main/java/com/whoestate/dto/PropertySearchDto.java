@@ -0,0 +1,108 @@
+package com.whoestate.dto;
+
+import jakarta.validation.constraints.PositiveOrZero;
+
+public class PropertySearchDto {
+    private String city;
+    private String district;
+    private String propertyType;
+    private String propertyStatus;
+
+    @PositiveOrZero(message = "Minimum price must not be negative")
+    private Double minPrice;
+
+    @PositiveOrZero(message = "Maximum price must not be negative")
+    private Double maxPrice;
+
+    @PositiveOrZero(message = "Minimum bedrooms must not be negative")
+    private Integer minBedrooms;
+
+    @PositiveOrZero(message = "Minimum bathrooms must not be negative")
+    private Integer minBathrooms;
+
+    @PositiveOrZero(message = "Minimum area must not be negative")
+    private Integer minArea;
+
+    @PositiveOrZero(message = "Maximum area must not be negative")
+    private Integer maxArea;
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getDistrict() {
+        return district;
+    }
+
+    public void setDistrict(String district) {
+        this.district = district;
+    }
+
+    public String getPropertyType() {
+        return propertyType;
+    }
+
+    public void setPropertyType(String propertyType) {
+        this.propertyType = propertyType;
+    }
+
+    public String getPropertyStatus() {
+        return propertyStatus;
+    }
+
+    public void setPropertyStatus(String propertyStatus) {
+        this.propertyStatus = propertyStatus;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getMinBedrooms() {
+        return minBedrooms;
+    }
+
+    public void setMinBedrooms(Integer minBedrooms) {
+        this.minBedrooms = minBedrooms;
+    }
+
+    public Integer getMinBathrooms() {
+        return minBathrooms;
+    }
+
+    public void setMinBathrooms(Integer minBathrooms) {
+        this.minBathrooms = minBathrooms;
+    }
+
+    public Integer getMinArea() {
+        return minArea;
+    }
+
+    public void setMinArea(Integer minArea) {
+        this.minArea = minArea;
+    }
+
+    public Integer getMaxArea() {
+        return maxArea;
+    }
+
+    public void setMaxArea(Integer maxArea) {
+        this.maxArea = maxArea;
+    }
+}
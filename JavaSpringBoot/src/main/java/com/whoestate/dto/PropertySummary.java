@@ -0,0 +1,120 @@
+package com.whoestate.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.whoestate.entity.Property;
+
+// Card-sized view of a property; FIELDS is the Mongo projection used to load it
+public class PropertySummary {
+    public static final String[] FIELDS = {
+        "title", "price", "city", "district", "propertyType", "area", "viewCount", "createdAt"
+    };
+
+    private String id;
+    private String title;
+    private Double price;
+    private String city;
+    private String district;
+    private String propertyType;
+    private Integer area;
+    private String image;
+    private Long viewCount;
+    private LocalDateTime createdAt;
+
+    public static PropertySummary from(Property property) {
+        PropertySummary summary = new PropertySummary();
+        summary.setId(property.getId());
+        summary.setTitle(property.getTitle());
+        summary.setPrice(property.getPrice());
+        summary.setCity(property.getCity());
+        summary.setDistrict(property.getDistrict());
+        summary.setPropertyType(property.getPropertyType());
+        summary.setArea(property.getArea());
+        List<String> images = property.getImages();
+        summary.setImage(images != null && !images.isEmpty() ? images.get(0) : null);
+        summary.setViewCount(property.getViewCount());
+        summary.setCreatedAt(property.getCreatedAt());
+        return summary;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getDistrict() {
+        return district;
+    }
+
+    public void setDistrict(String district) {
+        this.district = district;
+    }
+
+    public String getPropertyType() {
+        return propertyType;
+    }
+
+    public void setPropertyType(String propertyType) {
+        this.propertyType = propertyType;
+    }
+
+    public Integer getArea() {
+        return area;
+    }
+
+    public void setArea(Integer area) {
+        this.area = area;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
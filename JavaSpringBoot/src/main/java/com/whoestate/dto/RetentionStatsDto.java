@@ -0,0 +1,131 @@
+package com.whoestate.dto;
+
+import java.time.LocalDateTime;
+
+public class RetentionStatsDto {
+    private int maxAgeDays;
+    private int hourRollupTtlDays;
+    private long runs;
+    private long compactedTotal;
+    private long purgedTotal;
+    private long failedRuns;
+    private LocalDateTime lastCutoff;
+    private long lastCompacted;
+    private long lastPurged;
+    private boolean lastRunComplete;
+    private long lastRunMs;
+    private LocalDateTime lastRunAt;
+
+    public RetentionStatsDto(int maxAgeDays, int hourRollupTtlDays, long runs, long compactedTotal, long purgedTotal,
+                             long failedRuns, LocalDateTime lastCutoff, long lastCompacted, long lastPurged,
+                             boolean lastRunComplete, long lastRunMs, LocalDateTime lastRunAt) {
+        this.maxAgeDays = maxAgeDays;
+        this.hourRollupTtlDays = hourRollupTtlDays;
+        this.runs = runs;
+        this.compactedTotal = compactedTotal;
+        this.purgedTotal = purgedTotal;
+        this.failedRuns = failedRuns;
+        this.lastCutoff = lastCutoff;
+        this.lastCompacted = lastCompacted;
+        this.lastPurged = lastPurged;
+        this.lastRunComplete = lastRunComplete;
+        this.lastRunMs = lastRunMs;
+        this.lastRunAt = lastRunAt;
+    }
+
+    public int getMaxAgeDays() {
+        return maxAgeDays;
+    }
+
+    public void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    public int getHourRollupTtlDays() {
+        return hourRollupTtlDays;
+    }
+
+    public void setHourRollupTtlDays(int hourRollupTtlDays) {
+        this.hourRollupTtlDays = hourRollupTtlDays;
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public void setRuns(long runs) {
+        this.runs = runs;
+    }
+
+    public long getCompactedTotal() {
+        return compactedTotal;
+    }
+
+    public void setCompactedTotal(long compactedTotal) {
+        this.compactedTotal = compactedTotal;
+    }
+
+    public long getPurgedTotal() {
+        return purgedTotal;
+    }
+
+    public void setPurgedTotal(long purgedTotal) {
+        this.purgedTotal = purgedTotal;
+    }
+
+    public long getFailedRuns() {
+        return failedRuns;
+    }
+
+    public void setFailedRuns(long failedRuns) {
+        this.failedRuns = failedRuns;
+    }
+
+    public LocalDateTime getLastCutoff() {
+        return lastCutoff;
+    }
+
+    public void setLastCutoff(LocalDateTime lastCutoff) {
+        this.lastCutoff = lastCutoff;
+    }
+
+    public long getLastCompacted() {
+        return lastCompacted;
+    }
+
+    public void setLastCompacted(long lastCompacted) {
+        this.lastCompacted = lastCompacted;
+    }
+
+    public long getLastPurged() {
+        return lastPurged;
+    }
+
+    public void setLastPurged(long lastPurged) {
+        this.lastPurged = lastPurged;
+    }
+
+    public boolean isLastRunComplete() {
+        return lastRunComplete;
+    }
+
+    public void setLastRunComplete(boolean lastRunComplete) {
+        this.lastRunComplete = lastRunComplete;
+    }
+
+    public long getLastRunMs() {
+        return lastRunMs;
+    }
+
+    public void setLastRunMs(long lastRunMs) {
+        this.lastRunMs = lastRunMs;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public void setLastRunAt(LocalDateTime lastRunAt) {
+        this.lastRunAt = lastRunAt;
+    }
+}
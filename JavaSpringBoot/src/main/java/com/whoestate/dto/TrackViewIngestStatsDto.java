@@ -0,0 +1,100 @@
+package com.whoestate.dto;
+
+import java.time.LocalDateTime;
+
+public class TrackViewIngestStatsDto {
+    private int queued;
+    private int capacity;
+    private long accepted;
+    private long dropped;
+    private long flushed;
+    private long upserts;
+    private long failed;
+    private long lastFlushMs;
+    private LocalDateTime lastFlushAt;
+
+    public TrackViewIngestStatsDto(int queued, int capacity, long accepted, long dropped, long flushed,
+                                   long upserts, long failed, long lastFlushMs, LocalDateTime lastFlushAt) {
+        this.queued = queued;
+        this.capacity = capacity;
+        this.accepted = accepted;
+        this.dropped = dropped;
+        this.flushed = flushed;
+        this.upserts = upserts;
+        this.failed = failed;
+        this.lastFlushMs = lastFlushMs;
+        this.lastFlushAt = lastFlushAt;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public long getFlushed() {
+        return flushed;
+    }
+
+    public void setFlushed(long flushed) {
+        this.flushed = flushed;
+    }
+
+    public long getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(long upserts) {
+        this.upserts = upserts;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getLastFlushMs() {
+        return lastFlushMs;
+    }
+
+    public void setLastFlushMs(long lastFlushMs) {
+        this.lastFlushMs = lastFlushMs;
+    }
+
+    public LocalDateTime getLastFlushAt() {
+        return lastFlushAt;
+    }
+
+    public void setLastFlushAt(LocalDateTime lastFlushAt) {
+        this.lastFlushAt = lastFlushAt;
+    }
+}
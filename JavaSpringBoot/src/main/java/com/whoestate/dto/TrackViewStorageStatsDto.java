@@ -0,0 +1,67 @@
+package com.whoestate.dto;
+
+public class TrackViewStorageStatsDto {
+    private String collection;
+    private long documents;
+    private long dataSize;
+    private long averageDocumentSize;
+    private long totalIndexSize;
+    private Long propertyReadMs;
+
+    public TrackViewStorageStatsDto(String collection, long documents, long dataSize, long averageDocumentSize,
+                                    long totalIndexSize) {
+        this.collection = collection;
+        this.documents = documents;
+        this.dataSize = dataSize;
+        this.averageDocumentSize = averageDocumentSize;
+        this.totalIndexSize = totalIndexSize;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(long documents) {
+        this.documents = documents;
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    public void setDataSize(long dataSize) {
+        this.dataSize = dataSize;
+    }
+
+    public long getAverageDocumentSize() {
+        return averageDocumentSize;
+    }
+
+    public void setAverageDocumentSize(long averageDocumentSize) {
+        this.averageDocumentSize = averageDocumentSize;
+    }
+
+    public long getTotalIndexSize() {
+        return totalIndexSize;
+    }
+
+    public void setTotalIndexSize(long totalIndexSize) {
+        this.totalIndexSize = totalIndexSize;
+    }
+
+    public Long getPropertyReadMs() {
+        return propertyReadMs;
+    }
+
+    public void setPropertyReadMs(Long propertyReadMs) {
+        this.propertyReadMs = propertyReadMs;
+    }
+}
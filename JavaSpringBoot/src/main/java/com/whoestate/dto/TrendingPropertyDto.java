@@ -0,0 +1,37 @@
+package com.whoestate.dto;
+
+public class TrendingPropertyDto {
+    private PropertySummary property;
+    private long views;
+    private double score;
+
+    public TrendingPropertyDto(PropertySummary property, long views, double score) {
+        this.property = property;
+        this.views = views;
+        this.score = score;
+    }
+
+    public PropertySummary getProperty() {
+        return property;
+    }
+
+    public void setProperty(PropertySummary property) {
+        this.property = property;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
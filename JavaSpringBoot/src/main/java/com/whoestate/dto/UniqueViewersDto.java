@@ -0,0 +1,60 @@
+package com.whoestate.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public class UniqueViewersDto {
+    private String propertyId;
+    private LocalDate from;
+    private LocalDate to;
+    private long uniques;
+    private Map<String, Long> daily;
+
+    public UniqueViewersDto(String propertyId, LocalDate from, LocalDate to, long uniques, Map<String, Long> daily) {
+        this.propertyId = propertyId;
+        this.from = from;
+        this.to = to;
+        this.uniques = uniques;
+        this.daily = daily;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public long getUniques() {
+        return uniques;
+    }
+
+    public void setUniques(long uniques) {
+        this.uniques = uniques;
+    }
+
+    public Map<String, Long> getDaily() {
+        return daily;
+    }
+
+    public void setDaily(Map<String, Long> daily) {
+        this.daily = daily;
+    }
+}
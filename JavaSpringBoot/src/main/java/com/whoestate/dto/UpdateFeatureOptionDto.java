@@ -1,10 +1,15 @@
 package com.whoestate.dto;
 
+import java.time.LocalDateTime;
+
 public class UpdateFeatureOptionDto {
     private String name;
     private String category;
     private Boolean isActive;
 
+    // Optional precondition: the update is rejected with 409 if the stored updatedAt differs
+    private LocalDateTime expectedUpdatedAt;
+
     public String getName() {
         return name;
     }
@@ -28,4 +33,12 @@ public class UpdateFeatureOptionDto {
     public void setIsActive(Boolean active) {
         isActive = active;
     }
-}
\ No newline at end of file
+
+    public LocalDateTime getExpectedUpdatedAt() {
+        return expectedUpdatedAt;
+    }
+
+    public void setExpectedUpdatedAt(LocalDateTime expectedUpdatedAt) {
+        this.expectedUpdatedAt = expectedUpdatedAt;
+    }
+}
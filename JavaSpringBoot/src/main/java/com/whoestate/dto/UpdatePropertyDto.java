@@ -1,5 +1,6 @@
 package com.whoestate.dto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class UpdatePropertyDto {
@@ -17,6 +18,9 @@ public class UpdatePropertyDto {
     private List<String> images;
     private Boolean isApproved;
 
+    // Optional precondition: the update is rejected with 409 if the stored updatedAt differs
+    private LocalDateTime expectedUpdatedAt;
+
     public String getTitle() {
         return title;
     }
@@ -120,4 +124,12 @@ public class UpdatePropertyDto {
     public void setIsApproved(Boolean approved) {
         isApproved = approved;
     }
-}
\ No newline at end of file
+
+    public LocalDateTime getExpectedUpdatedAt() {
+        return expectedUpdatedAt;
+    }
+
+    public void setExpectedUpdatedAt(LocalDateTime expectedUpdatedAt) {
+        this.expectedUpdatedAt = expectedUpdatedAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.whoestate.dto;
+
+import java.time.LocalDateTime;
+
+public class ViewBucketDto {
+    private LocalDateTime bucket;
+    private long views;
+
+    public ViewBucketDto(LocalDateTime bucket, long views) {
+        this.bucket = bucket;
+        this.views = views;
+    }
+
+    public LocalDateTime getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(LocalDateTime bucket) {
+        this.bucket = bucket;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+}
@@ -0,0 +1,80 @@
+package com.whoestate.dto;
+
+import java.time.LocalDateTime;
+
+public class ViewCounterStatsDto {
+    private long pendingViews;
+    private int trackedProperties;
+    private long flushedViews;
+    private long failedFlushes;
+    private long flushIntervalMs;
+    private long lastFlushMs;
+    private LocalDateTime lastFlushAt;
+
+    public ViewCounterStatsDto(long pendingViews, int trackedProperties, long flushedViews, long failedFlushes,
+                               long flushIntervalMs, long lastFlushMs, LocalDateTime lastFlushAt) {
+        this.pendingViews = pendingViews;
+        this.trackedProperties = trackedProperties;
+        this.flushedViews = flushedViews;
+        this.failedFlushes = failedFlushes;
+        this.flushIntervalMs = flushIntervalMs;
+        this.lastFlushMs = lastFlushMs;
+        this.lastFlushAt = lastFlushAt;
+    }
+
+    public long getPendingViews() {
+        return pendingViews;
+    }
+
+    public void setPendingViews(long pendingViews) {
+        this.pendingViews = pendingViews;
+    }
+
+    public int getTrackedProperties() {
+        return trackedProperties;
+    }
+
+    public void setTrackedProperties(int trackedProperties) {
+        this.trackedProperties = trackedProperties;
+    }
+
+    public long getFlushedViews() {
+        return flushedViews;
+    }
+
+    public void setFlushedViews(long flushedViews) {
+        this.flushedViews = flushedViews;
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes;
+    }
+
+    public void setFailedFlushes(long failedFlushes) {
+        this.failedFlushes = failedFlushes;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getLastFlushMs() {
+        return lastFlushMs;
+    }
+
+    public void setLastFlushMs(long lastFlushMs) {
+        this.lastFlushMs = lastFlushMs;
+    }
+
+    public LocalDateTime getLastFlushAt() {
+        return lastFlushAt;
+    }
+
+    public void setLastFlushAt(LocalDateTime lastFlushAt) {
+        this.lastFlushAt = lastFlushAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.whoestate.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.whoestate.enums.RollupGranularity;
+
+public class ViewStatsDto {
+    private String propertyId;
+    private RollupGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long total;
+    private List<ViewBucketDto> buckets;
+
+    public ViewStatsDto(String propertyId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                        long total, List<ViewBucketDto> buckets) {
+        this.propertyId = propertyId;
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.total = total;
+        this.buckets = buckets;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<ViewBucketDto> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<ViewBucketDto> buckets) {
+        this.buckets = buckets;
+    }
+}
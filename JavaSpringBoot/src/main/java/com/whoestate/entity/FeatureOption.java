@@ -3,6 +3,8 @@ package com.whoestate.entity;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "featureoptions")
@@ -14,6 +16,7 @@ public class FeatureOption {
     private String category;
     private Boolean isActive;
     private LocalDateTime createdAt;
+    @Indexed(direction = IndexDirection.DESCENDING)
     private LocalDateTime updatedAt;
 
     // Constructors
@@ -0,0 +1,30 @@
+package com.whoestate.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Total unread messages of one user, keyed by user id, so the unread badge is a single _id lookup
+@Document(collection = "inbox_counters")
+public class InboxCounter {
+    @Id
+    private String userId;
+
+    private long unread;
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public long getUnread() {
+        return unread;
+    }
+
+    public void setUnread(long unread) {
+        this.unread = unread;
+    }
+}
@@ -3,18 +3,24 @@ package com.whoestate.entity;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "messages")
+@CompoundIndex(name = "conversation_createdAt_id", def = "{'conversationId': 1, 'createdAt': -1, '_id': -1}")
 public class Message {
     @Id
     private String id;
 
+    private String conversationId;
     private String senderId;
     private String receiverId;
     private String propertyId;
     private String content;
     private Boolean isRead;
+    // Serves the search index catch-up and the push poll, which read messages created since their last run
+    @Indexed
     private LocalDateTime createdAt;
 
     // Constructors
@@ -23,6 +29,12 @@ public class Message {
         this.isRead = false;
     }
 
+    // Same id whichever side sends: the participant ids in sorted order, then the property the chat is about, if any
+    public static String conversationIdOf(String userId, String otherUserId, String propertyId) {
+        String id = userId.compareTo(otherUserId) <= 0 ? userId + ":" + otherUserId : otherUserId + ":" + userId;
+        return propertyId != null && !propertyId.isBlank() ? id + ":" + propertyId : id;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -32,6 +44,14 @@ public class Message {
         this.id = id;
     }
 
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
     public String getSenderId() {
         return senderId;
     }
@@ -4,9 +4,23 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "properties")
+@CompoundIndexes({
+    @CompoundIndex(name = "approved_created_id", def = "{'isApproved': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "city_created_id", def = "{'city': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "type_created_id", def = "{'propertyType': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_created_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "search_city_district_type", def = "{'isApproved': 1, 'city': 1, 'district': 1, 'propertyType': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "search_type_status", def = "{'isApproved': 1, 'propertyType': 1, 'propertyStatus': 1, 'createdAt': -1, '_id': -1}"),
+    // Equality, sort, then range: the price bounds are checked on index keys while the scan already yields keyset order
+    @CompoundIndex(name = "search_price_created_id", def = "{'isApproved': 1, 'createdAt': -1, '_id': -1, 'price': 1}")
+})
 public class Property {
     @Id
     private String id;
@@ -25,7 +39,10 @@ public class Property {
     private List<String> images;
     private String userId;
     private Boolean isApproved;
+    // Denormalized from track views by the view counter flush; approximate and not reflected in updatedAt
+    private Long viewCount;
     private LocalDateTime createdAt;
+    @Indexed(direction = IndexDirection.DESCENDING)
     private LocalDateTime updatedAt;
 
     // Constructors
@@ -156,6 +173,14 @@ public class Property {
         isApproved = approved;
     }
 
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
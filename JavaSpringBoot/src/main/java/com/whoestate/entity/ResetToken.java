@@ -3,6 +3,7 @@ package com.whoestate.entity;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "resettokens")
@@ -12,6 +13,8 @@ public class ResetToken {
 
     private String token;
     private String userId;
+    // TTL index: Mongo's expiry monitor deletes the token shortly after expiryDate, isExpired() still guards reads
+    @Indexed(name = "expiry_ttl", expireAfter = "0s")
     private LocalDateTime expiryDate;
 
     // Constructors
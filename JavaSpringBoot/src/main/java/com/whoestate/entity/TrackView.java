@@ -3,9 +3,16 @@ package com.whoestate.entity;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "trackviews")
+// Keyset listing order (viewedAt desc, id desc), overall and per property; the first also serves retention's range scan
+@CompoundIndexes({
+    @CompoundIndex(name = "viewedAt_id", def = "{'viewedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "property_viewedAt_id", def = "{'propertyId': 1, 'viewedAt': -1, '_id': -1}")
+})
 public class TrackView {
     @Id
     private String id;
@@ -13,6 +20,7 @@ public class TrackView {
     private String userId;
     private String propertyId;
     private LocalDateTime viewedAt;
+    private Long viewCount;
 
     // Constructors
     public TrackView() {
@@ -51,4 +59,12 @@ public class TrackView {
     public void setViewedAt(LocalDateTime viewedAt) {
         this.viewedAt = viewedAt;
     }
+
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
 }
\ No newline at end of file
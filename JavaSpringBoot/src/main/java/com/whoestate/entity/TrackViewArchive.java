@@ -0,0 +1,62 @@
+package com.whoestate.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// What remains of raw track views once retention compacts them: the views and raw entries of one property in one
+// month (yyyy-MM). Written only by the compaction job, with $inc, so repeated runs add up.
+@Document(collection = "trackview_archive")
+public class TrackViewArchive {
+    @Id
+    private String id;
+
+    private String propertyId;
+    private String month;
+    private long views;
+    private long entries;
+
+    public static String idOf(String propertyId, String month) {
+        return propertyId + ":" + month;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public void setEntries(long entries) {
+        this.entries = entries;
+    }
+}
@@ -0,0 +1,125 @@
+package com.whoestate.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+// Bucket pattern for raw track views: one document per property per day holds up to a fixed number of views,
+// after which writes open another bucket for the same day. Entries use one-letter field names to stay compact.
+@Document(collection = "trackview_buckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "property_day_count", def = "{'propertyId': 1, 'day': -1, 'count': 1}"),
+    @CompoundIndex(name = "views_user", def = "{'v.u': 1}")
+})
+public class TrackViewBucket {
+    @Id
+    private String id;
+
+    private String propertyId;
+    @Indexed
+    private String day;
+    private int count;
+    @Field("v")
+    private List<Entry> views;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getDay() {
+        return day;
+    }
+
+    public void setDay(String day) {
+        this.day = day;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public List<Entry> getViews() {
+        return views;
+    }
+
+    public void setViews(List<Entry> views) {
+        this.views = views;
+    }
+
+    // One (user, time) pair; n is how many views the flush window coalesced into it. Entries copied from the per-pair
+    // documents also keep the source document id in s, so an interrupted migration can take back an unrecorded batch
+    public static class Entry {
+        @Field("u")
+        private String userId;
+        @Field("t")
+        private LocalDateTime viewedAt;
+        @Field("n")
+        private long views;
+        @Field("s")
+        private String sourceId;
+
+        public Entry() {
+        }
+
+        public Entry(String userId, LocalDateTime viewedAt, long views) {
+            this.userId = userId;
+            this.viewedAt = viewedAt;
+            this.views = views;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public LocalDateTime getViewedAt() {
+            return viewedAt;
+        }
+
+        public void setViewedAt(LocalDateTime viewedAt) {
+            this.viewedAt = viewedAt;
+        }
+
+        public long getViews() {
+            return views;
+        }
+
+        public void setViews(long views) {
+            this.views = views;
+        }
+
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public void setSourceId(String sourceId) {
+            this.sourceId = sourceId;
+        }
+    }
+}
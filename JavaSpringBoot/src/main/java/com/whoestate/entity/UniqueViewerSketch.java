@@ -0,0 +1,64 @@
+package com.whoestate.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Serialized HyperLogLog of the users who viewed one property on one day (yyyy-MM-dd).
+// version is bumped by every merge so concurrent writers from several nodes can compare-and-set.
+@Document(collection = "trackview_uniques")
+@CompoundIndex(name = "property_day", def = "{'propertyId': 1, 'day': 1}")
+public class UniqueViewerSketch {
+    @Id
+    private String id;
+
+    private String propertyId;
+    private String day;
+    private byte[] sketch;
+    private long version;
+
+    public static String idOf(String propertyId, String day) {
+        return propertyId + ":" + day;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getDay() {
+        return day;
+    }
+
+    public void setDay(String day) {
+        this.day = day;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
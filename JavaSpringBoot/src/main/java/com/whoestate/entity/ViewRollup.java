@@ -0,0 +1,69 @@
+package com.whoestate.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.whoestate.enums.RollupGranularity;
+
+// View count for one property (or every property, propertyId "*") within one hour, day or month bucket
+@Document(collection = "trackview_rollups")
+@CompoundIndex(name = "granularity_property_bucket", def = "{'granularity': 1, 'propertyId': 1, 'bucket': 1}")
+public class ViewRollup {
+    public static final String ALL_PROPERTIES = "*";
+
+    @Id
+    private String id;
+
+    private RollupGranularity granularity;
+    private String propertyId;
+    private LocalDateTime bucket;
+    private long views;
+
+    public static String idOf(RollupGranularity granularity, String propertyId, LocalDateTime bucket) {
+        return granularity.name() + ":" + propertyId + ":" + bucket;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public LocalDateTime getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(LocalDateTime bucket) {
+        this.bucket = bucket;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+}
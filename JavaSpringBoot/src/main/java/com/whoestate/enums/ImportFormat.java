@@ -0,0 +1,17 @@
+package com.whoestate.enums;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    Ndjson,
+    Csv;
+
+    public static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType != null && CSV.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            return Csv;
+        }
+        return Ndjson;
+    }
+}
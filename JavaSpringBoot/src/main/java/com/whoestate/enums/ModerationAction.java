@@ -0,0 +1,20 @@
+package com.whoestate.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+public enum ModerationAction {
+    Approve,
+    Reject,
+    Delete;
+
+    // Unknown values map to null so bean validation reports them instead of a parse error
+    @JsonCreator
+    public static ModerationAction fromValue(String value) {
+        for (ModerationAction action : values()) {
+            if (action.name().equalsIgnoreCase(value)) {
+                return action;
+            }
+        }
+        return null;
+    }
+}
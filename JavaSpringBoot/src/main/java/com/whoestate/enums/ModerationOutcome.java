@@ -0,0 +1,9 @@
+package com.whoestate.enums;
+
+public enum ModerationOutcome {
+    Approved,
+    Rejected,
+    Deleted,
+    Unchanged,
+    NotFound
+}
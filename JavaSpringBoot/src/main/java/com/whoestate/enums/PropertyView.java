@@ -0,0 +1,10 @@
+package com.whoestate.enums;
+
+public enum PropertyView {
+    Summary,
+    Full;
+
+    public static PropertyView fromParam(String view) {
+        return "full".equalsIgnoreCase(view) ? Full : Summary;
+    }
+}
@@ -0,0 +1,45 @@
+package com.whoestate.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    Hour,
+    Day,
+    Month;
+
+    public static RollupGranularity fromParam(String granularity) {
+        if (granularity == null || granularity.isBlank()) {
+            return Day;
+        }
+        for (RollupGranularity value : values()) {
+            if (value.name().equalsIgnoreCase(granularity)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("granularity must be hour, day or month");
+    }
+
+    // Start of the bucket containing the given time
+    public LocalDateTime truncate(LocalDateTime time) {
+        switch (this) {
+            case Hour:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case Day:
+                return time.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+
+    public LocalDateTime next(LocalDateTime bucket) {
+        switch (this) {
+            case Hour:
+                return bucket.plusHours(1);
+            case Day:
+                return bucket.plusDays(1);
+            default:
+                return bucket.plusMonths(1);
+        }
+    }
+}
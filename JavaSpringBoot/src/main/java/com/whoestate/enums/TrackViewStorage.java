@@ -0,0 +1,10 @@
+package com.whoestate.enums;
+
+public enum TrackViewStorage {
+    Documents,
+    Buckets;
+
+    public static TrackViewStorage fromProperty(String storage) {
+        return "buckets".equalsIgnoreCase(storage) ? Buckets : Documents;
+    }
+}
@@ -0,0 +1,223 @@
+package com.whoestate.messaging;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.entity.Message;
+import com.whoestate.repository.InboxEntryRepository;
+import com.whoestate.repository.MessageRepository;
+import com.whoestate.util.KeysetCursor;
+
+import jakarta.annotation.PostConstruct;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+// In-process fan-out of new messages to open SSE connections, keyed by user id. Each connection has a bounded buffer;
+// a client too slow to drain it is disconnected rather than buffered without limit, and catches up by reconnecting
+// with Last-Event-ID, which replays from the conversation index. All connections share one heartbeat timer.
+// Messages written through this node are pushed as they are saved. Messages written through other nodes are read back
+// by a poll over createdAt every poll interval, so they arrive that much later; ids already pushed are remembered for
+// the poll's overlap window, so each message reaches a connection once.
+@Component
+public class MessagePushRegistry {
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    @Value("${app.messages.push.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${app.messages.push.heartbeat-interval:15s}")
+    private Duration heartbeatInterval;
+
+    @Value("${app.messages.push.max-connections-per-user:10}")
+    private int maxConnectionsPerUser;
+
+    @Value("${app.messages.push.replay-limit:500}")
+    private int replayLimit;
+
+    @Value("${app.messages.push.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    private final ConcurrentHashMap<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder overflowDisconnects = new LongAdder();
+    // Ids of pushed messages by createdAt, kept until a poll can no longer return them
+    private final ConcurrentHashMap<String, LocalDateTime> pushed = new ConcurrentHashMap<>();
+    private volatile LocalDateTime polledTo = LocalDateTime.now();
+    private Flux<ServerSentEvent<Message>> heartbeat;
+
+    @PostConstruct
+    public void startHeartbeat() {
+        heartbeat = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.<Message>builder().comment("heartbeat").build())
+                .share();
+    }
+
+    // Replays what the user missed after lastEventId (if given), then streams live messages until the client leaves
+    public Flux<ServerSentEvent<Message>> subscribe(String userId, String lastEventId) {
+        KeysetCursor since = KeysetCursor.decode(lastEventId);
+        Connection connection = new Connection(userId, bufferSize);
+        register(connection);
+
+        // Registered before the replay query, so nothing written meanwhile is missed; the few messages that show up
+        // in both are dropped from the live side
+        Flux<ServerSentEvent<Message>> events = connection.sink.asFlux();
+        if (since != null) {
+            List<Message> missed;
+            try {
+                missed = replay(userId, since);
+            } catch (RuntimeException e) {
+                unregister(connection);
+                throw e;
+            }
+            Set<String> replayed = new HashSet<>();
+            missed.forEach(message -> replayed.add(message.getId()));
+            Flux<ServerSentEvent<Message>> backlog = Flux.fromIterable(missed).map(MessagePushRegistry::toEvent);
+            if (missed.size() == replayLimit) {
+                // Too far behind to replay everything: tell the client to reload over REST instead
+                backlog = backlog.concatWith(Flux.just(ServerSentEvent.<Message>builder().event("reset").build()));
+            }
+            events = backlog.concatWith(events.filter(event -> !replayed.contains(event.data().getId())));
+        }
+        // The heartbeat never completes on its own, so it is cut off when the connection is closed for overflowing
+        return Flux.merge(events, heartbeat.takeUntilOther(connection.closed.asMono()))
+                .doFinally(signal -> unregister(connection));
+    }
+
+    // Delivered to every open connection of both participants, so the sender's other tabs stay in sync
+    public void publish(Message message) {
+        if (pushed.putIfAbsent(message.getId(), message.getCreatedAt()) != null) {
+            return;
+        }
+        ServerSentEvent<Message> event = toEvent(message);
+        deliver(message.getReceiverId(), event);
+        if (!message.getSenderId().equals(message.getReceiverId())) {
+            deliver(message.getSenderId(), event);
+        }
+        published.increment();
+    }
+
+    // Pushes messages created through other nodes since the last poll. The window reaches back by the overlap so clock
+    // skew between nodes and writes still in flight are not missed. With no open connection there is nobody to push
+    // to, and a client connecting later replays through Last-Event-ID instead
+    @Scheduled(fixedDelayString = "${app.messages.push.poll-interval-ms:1000}")
+    public void pollOtherNodes() {
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = polledTo.minusNanos(pollOverlapMs * 1_000_000);
+        if (!connections.isEmpty()) {
+            try (Stream<Message> messages = messageRepository.streamByCreatedAtGreaterThanEqualOrderByCreatedAtAsc(since)) {
+                messages.forEach(this::publish);
+            }
+        }
+        polledTo = started;
+        LocalDateTime forgetBefore = started.minusNanos(pollOverlapMs * 1_000_000);
+        pushed.values().removeIf(createdAt -> createdAt == null || createdAt.isBefore(forgetBefore));
+    }
+
+    public int connectionCount() {
+        int open = 0;
+        for (Set<Connection> userConnections : connections.values()) {
+            open += userConnections.size();
+        }
+        return open;
+    }
+
+    public int userCount() {
+        return connections.size();
+    }
+
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    public long overflowDisconnectCount() {
+        return overflowDisconnects.sum();
+    }
+
+    private void register(Connection connection) {
+        connections.compute(connection.userId, (userId, userConnections) -> {
+            Set<Connection> updated = userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+            if (updated.size() >= maxConnectionsPerUser) {
+                throw new TooManyStreamsException("Too many open message streams for this user");
+            }
+            updated.add(connection);
+            return updated;
+        });
+    }
+
+    private void unregister(Connection connection) {
+        connections.computeIfPresent(connection.userId, (userId, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private void deliver(String userId, ServerSentEvent<Message> event) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            if (!connection.emit(event)) {
+                overflowDisconnects.increment();
+                unregister(connection);
+            }
+        }
+    }
+
+    private List<Message> replay(String userId, KeysetCursor since) {
+        List<String> conversationIds = inboxEntryRepository.findConversationIdsActiveSince(userId, since.getTimestamp());
+        if (conversationIds.isEmpty()) {
+            return List.of();
+        }
+        return messageRepository.findConversationsSince(conversationIds, since, replayLimit);
+    }
+
+    // The event id is the message's keyset position, which is exactly what a reconnect needs to resume from
+    private static ServerSentEvent<Message> toEvent(Message message) {
+        return ServerSentEvent.builder(message)
+                .id(KeysetCursor.of(message.getCreatedAt(), message.getId()).encode())
+                .event("message")
+                .build();
+    }
+
+    private static final class Connection {
+        private final String userId;
+        private final Sinks.Many<ServerSentEvent<Message>> sink;
+        private final Sinks.Empty<Void> closed = Sinks.empty();
+
+        private Connection(String userId, int bufferSize) {
+            this.userId = userId;
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<ServerSentEvent<Message>>get(bufferSize).get());
+        }
+
+        // Publishers may race on one connection; the sink needs serialized emissions. Returns false once the buffer
+        // overflowed, after completing the stream so the client reconnects and resumes
+        private synchronized boolean emit(ServerSentEvent<Message> event) {
+            Sinks.EmitResult result = sink.tryEmitNext(event);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                sink.tryEmitComplete();
+                closed.tryEmitEmpty();
+                return false;
+            }
+            return true;
+        }
+    }
+}
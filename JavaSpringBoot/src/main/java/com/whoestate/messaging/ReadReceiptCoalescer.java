@@ -0,0 +1,146 @@
+package com.whoestate.messaging;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.entity.Message;
+import com.whoestate.repository.InboxEntryRepository;
+import com.whoestate.repository.MessageRepository;
+import com.whoestate.util.KeysetCursor;
+
+import jakarta.annotation.PreDestroy;
+
+// Read receipts arrive for every message a client scrolls past. They are collected per (reader, conversation) and
+// applied once per flush window: one lookup resolves every receipted message, then one updateMulti per conversation
+// marks everything up to the furthest message read. Only the newest few ids are kept per conversation, since the
+// furthest one is almost always among them.
+@Component
+public class ReadReceiptCoalescer {
+
+    private static final int MAX_IDS_PER_CONVERSATION = 32;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    private final ConcurrentHashMap<String, Set<String>> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder receipts = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public void record(String userId, String conversationId, String messageId) {
+        pending.compute(userId + '\u0000' + conversationId, (key, ids) -> {
+            Set<String> updated = ids != null ? ids : new LinkedHashSet<>();
+            updated.remove(messageId);
+            updated.add(messageId);
+            if (updated.size() > MAX_IDS_PER_CONVERSATION) {
+                updated.remove(updated.iterator().next());
+            }
+            return updated;
+        });
+        receipts.increment();
+    }
+
+    public long receiptCount() {
+        return receipts.sum();
+    }
+
+    public long writeCount() {
+        return writes.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.messages.receipts.flush-interval-ms:500}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        Map<String, Set<String>> batch = new HashMap<>();
+        for (String key : new ArrayList<>(pending.keySet())) {
+            Set<String> ids = pending.remove(key);
+            if (ids != null) {
+                batch.put(key, ids);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> allIds = new HashSet<>();
+        batch.values().forEach(allIds::addAll);
+        Map<String, Message> messages = new HashMap<>();
+        for (Message message : messageRepository.findAllById(allIds)) {
+            messages.put(message.getId(), message);
+        }
+
+        for (Map.Entry<String, Set<String>> entry : batch.entrySet()) {
+            int separator = entry.getKey().indexOf('\u0000');
+            String userId = entry.getKey().substring(0, separator);
+            String conversationId = entry.getKey().substring(separator + 1);
+            KeysetCursor furthest = furthest(entry.getValue(), messages, conversationId);
+            if (furthest == null) {
+                continue;
+            }
+            try {
+                long marked = messageRepository.markRead(userId, conversationId, furthest);
+                inboxEntryRepository.adjustUnread(userId, conversationId, -marked);
+                writes.increment();
+            } catch (RuntimeException e) {
+                // Receipts are advisory; the next receipt or an explicit mark-as-read catches up
+                System.err.println("Read receipt flush failed for conversation " + conversationId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Ignores ids that do not exist or belong to another conversation
+    private static KeysetCursor furthest(Set<String> ids, Map<String, Message> messages, String conversationId) {
+        Message furthest = null;
+        for (String id : ids) {
+            Message message = messages.get(id);
+            if (message == null || !conversationId.equals(message.getConversationId())) {
+                continue;
+            }
+            if (furthest == null || isAfter(message, furthest)) {
+                furthest = message;
+            }
+        }
+        return furthest != null ? KeysetCursor.of(furthest.getCreatedAt(), furthest.getId()) : null;
+    }
+
+    private static boolean isAfter(Message message, Message other) {
+        int byTime = message.getCreatedAt().compareTo(other.getCreatedAt());
+        return byTime > 0 || (byTime == 0 && message.getId().compareTo(other.getId()) > 0);
+    }
+}
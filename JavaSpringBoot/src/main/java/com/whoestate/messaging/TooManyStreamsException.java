@@ -0,0 +1,10 @@
+package com.whoestate.messaging;
+
+// Thrown when a user already holds the maximum number of open message streams, so callers can answer 429 without
+// catching unrelated IllegalStateExceptions
+public class TooManyStreamsException extends RuntimeException {
+
+    public TooManyStreamsException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,7 @@
 package com.whoestate.repository;
 
+import java.util.stream.Stream;
+
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -7,5 +9,5 @@ import com.whoestate.entity.ClientIntake;
 
 @Repository
 public interface ClientIntakeRepository extends MongoRepository<ClientIntake, String> {
-    // Additional query methods can be added here if needed
-}
\ No newline at end of file
+    Stream<ClientIntake> streamAllBy();
+}
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
 import com.whoestate.entity.FeatureOption;
 
 @Repository
-public interface FeatureOptionRepository extends MongoRepository<FeatureOption, String> {
+public interface FeatureOptionRepository extends MongoRepository<FeatureOption, String>, FeatureOptionRepositoryCustom {
     List<FeatureOption> findByCategory(String category);
     List<FeatureOption> findByIsActiveTrue();
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.FeatureOption;
+import com.whoestate.util.CollectionVersion;
+
+public interface FeatureOptionRepositoryCustom {
+    FeatureOption updateFields(String id, Update update, LocalDateTime expectedUpdatedAt);
+    CollectionVersion collectionVersion();
+}
@@ -0,0 +1,34 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.FeatureOption;
+import com.whoestate.util.CollectionVersion;
+
+public class FeatureOptionRepositoryImpl implements FeatureOptionRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public FeatureOption updateFields(String id, Update update, LocalDateTime expectedUpdatedAt) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedUpdatedAt != null) {
+            criteria.and("updatedAt").is(expectedUpdatedAt);
+        }
+        return mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), FeatureOption.class);
+    }
+
+    @Override
+    public CollectionVersion collectionVersion() {
+        return CollectionVersion.of(mongoTemplate, FeatureOption.class);
+    }
+}
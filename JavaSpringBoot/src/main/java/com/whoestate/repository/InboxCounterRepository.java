@@ -0,0 +1,10 @@
+package com.whoestate.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.whoestate.entity.InboxCounter;
+
+@Repository
+public interface InboxCounterRepository extends MongoRepository<InboxCounter, String> {
+}
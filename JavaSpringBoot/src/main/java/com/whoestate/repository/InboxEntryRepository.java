@@ -0,0 +1,10 @@
+package com.whoestate.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.whoestate.entity.InboxEntry;
+
+@Repository
+public interface InboxEntryRepository extends MongoRepository<InboxEntry, String>, InboxEntryRepositoryCustom {
+}
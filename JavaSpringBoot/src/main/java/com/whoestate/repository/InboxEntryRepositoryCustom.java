@@ -0,0 +1,16 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.whoestate.entity.InboxEntry;
+import com.whoestate.entity.Message;
+import com.whoestate.util.KeysetCursor;
+
+public interface InboxEntryRepositoryCustom {
+    void recordMessage(Message message);
+    void adjustUnread(String userId, String conversationId, long delta);
+    List<InboxEntry> findPage(String userId, KeysetCursor after, int limit);
+    List<String> findConversationIdsActiveSince(String userId, LocalDateTime since);
+    long rebuild();
+}
@@ -0,0 +1,226 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+
+import com.whoestate.entity.InboxCounter;
+import com.whoestate.entity.InboxEntry;
+import com.whoestate.entity.Message;
+import com.whoestate.util.KeysetCursor;
+
+public class InboxEntryRepositoryImpl implements InboxEntryRepositoryCustom {
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Every step is a single-document atomic update, so no transaction is needed and concurrent messages cannot lose
+    // an increment. The summary is only replaced by a message at least as new as the one shown, so two messages
+    // landing out of order still leave the newest on top.
+    @Override
+    public void recordMessage(Message message) {
+        String conversationId = message.getConversationId();
+        String receiverEntry = InboxEntry.idOf(message.getReceiverId(), conversationId);
+        String senderEntry = InboxEntry.idOf(message.getSenderId(), conversationId);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, InboxEntry.class);
+        bulk.upsert(byId(receiverEntry), new Update()
+                .inc("unreadCount", 1)
+                .setOnInsert("userId", message.getReceiverId())
+                .setOnInsert("conversationId", conversationId)
+                .setOnInsert("peerId", message.getSenderId())
+                .setOnInsert("propertyId", message.getPropertyId()));
+        if (!senderEntry.equals(receiverEntry)) {
+            bulk.upsert(byId(senderEntry), new Update()
+                    .setOnInsert("userId", message.getSenderId())
+                    .setOnInsert("conversationId", conversationId)
+                    .setOnInsert("peerId", message.getReceiverId())
+                    .setOnInsert("propertyId", message.getPropertyId())
+                    .setOnInsert("unreadCount", 0L));
+        }
+        Update summary = new Update()
+                .set("lastMessageId", message.getId())
+                .set("lastSenderId", message.getSenderId())
+                .set("lastMessagePreview", InboxEntry.previewOf(message.getContent()))
+                .set("lastMessageAt", message.getCreatedAt());
+        Criteria olderSummary = new Criteria().orOperator(
+                Criteria.where("lastMessageAt").is(null),
+                Criteria.where("lastMessageAt").lte(message.getCreatedAt()));
+        bulk.updateOne(new Query(Criteria.where("id").is(receiverEntry).andOperator(olderSummary)), summary);
+        if (!senderEntry.equals(receiverEntry)) {
+            bulk.updateOne(new Query(Criteria.where("id").is(senderEntry).andOperator(olderSummary)), summary);
+        }
+        bulk.execute();
+
+        mongoTemplate.upsert(byId(message.getReceiverId()), new Update().inc("unread", 1), InboxCounter.class);
+    }
+
+    // Applies the same delta to the conversation's entry and to the user's total
+    @Override
+    public void adjustUnread(String userId, String conversationId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        mongoTemplate.updateFirst(byId(InboxEntry.idOf(userId, conversationId)), new Update().inc("unreadCount", delta),
+                InboxEntry.class);
+        mongoTemplate.upsert(byId(userId), new Update().inc("unread", delta), InboxCounter.class);
+    }
+
+    // Most recently active conversations first
+    @Override
+    public List<InboxEntry> findPage(String userId, KeysetCursor after, int limit) {
+        Query query = new Query(Criteria.where("userId").is(userId));
+        if (after != null) {
+            query.addCriteria(after.after("lastMessageAt"));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "lastMessageAt", "id")).limit(limit);
+        return mongoTemplate.find(query, InboxEntry.class);
+    }
+
+    @Override
+    public List<String> findConversationIdsActiveSince(String userId, LocalDateTime since) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("lastMessageAt").gte(since));
+        query.fields().include("conversationId");
+        return mongoTemplate.find(query, InboxEntry.class).stream().map(InboxEntry::getConversationId).toList();
+    }
+
+    // Recomputes every inbox entry and counter from the messages, walking them conversation by conversation along the
+    // (conversationId, createdAt desc) index, so only one conversation is held in memory at a time. Nothing is deleted
+    // up front: each entry is upserted the way recordMessage writes it, with the unread count set and the summary only
+    // replacing an older one, so a message recorded meanwhile cannot collide with the rebuild or be pushed off the top.
+    // Entries of conversations without messages and counters of users with nothing unread are cleared afterwards.
+    // An unread increment racing with the same conversation's rebuild can still be overwritten; run it again to repair.
+    // Returns the number of entries written
+    @Override
+    public long rebuild() {
+        Query messages = new Query(Criteria.where("conversationId").ne(null))
+                .with(Sort.by(Sort.Direction.ASC, "conversationId").and(Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+
+        Map<String, Long> unreadByUser = new HashMap<>();
+        Set<String> rebuilt = new HashSet<>();
+        List<InboxEntry> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        try (Stream<Message> stream = mongoTemplate.stream(messages, Message.class)) {
+            Iterator<Message> iterator = stream.iterator();
+            InboxEntry receiver = null;
+            InboxEntry sender = null;
+            while (iterator.hasNext()) {
+                Message message = iterator.next();
+                if (receiver == null || !receiver.getConversationId().equals(message.getConversationId())) {
+                    collect(batch, rebuilt, receiver, sender);
+                    // The newest message comes first and becomes the summary of both participants
+                    receiver = summaryFor(message.getReceiverId(), message.getSenderId(), message);
+                    sender = message.getSenderId().equals(message.getReceiverId())
+                            ? null : summaryFor(message.getSenderId(), message.getReceiverId(), message);
+                }
+                if (!Boolean.TRUE.equals(message.getIsRead())) {
+                    InboxEntry unreadBy = message.getReceiverId().equals(receiver.getUserId()) ? receiver : sender;
+                    unreadBy.setUnreadCount(unreadBy.getUnreadCount() + 1);
+                    unreadByUser.merge(message.getReceiverId(), 1L, Long::sum);
+                }
+            }
+            collect(batch, rebuilt, receiver, sender);
+        }
+        upsertEntries(batch);
+
+        List<String> orphaned = new ArrayList<>();
+        Query entries = new Query();
+        entries.fields().include("id");
+        try (Stream<InboxEntry> stored = mongoTemplate.stream(entries, InboxEntry.class)) {
+            stored.filter(entry -> !rebuilt.contains(entry.getId())).forEach(entry -> orphaned.add(entry.getId()));
+        }
+        for (int from = 0; from < orphaned.size(); from += WRITE_BATCH_SIZE) {
+            mongoTemplate.remove(new Query(Criteria.where("id").in(orphaned.subList(from, Math.min(from + WRITE_BATCH_SIZE,
+                    orphaned.size())))), InboxEntry.class);
+        }
+
+        List<Pair<Query, Update>> counters = new ArrayList<>();
+        unreadByUser.forEach((userId, unread) -> counters.add(Pair.of(byId(userId), new Update().set("unread", unread))));
+        Query storedCounters = new Query(Criteria.where("unread").ne(0L));
+        storedCounters.fields().include("userId");
+        try (Stream<InboxCounter> stored = mongoTemplate.stream(storedCounters, InboxCounter.class)) {
+            stored.filter(counter -> !unreadByUser.containsKey(counter.getUserId()))
+                    .forEach(counter -> counters.add(Pair.of(byId(counter.getUserId()), new Update().set("unread", 0L))));
+        }
+        for (int from = 0; from < counters.size(); from += WRITE_BATCH_SIZE) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InboxCounter.class);
+            bulk.upsert(counters.subList(from, Math.min(from + WRITE_BATCH_SIZE, counters.size())));
+            bulk.execute();
+        }
+        return rebuilt.size();
+    }
+
+    private void collect(List<InboxEntry> batch, Set<String> rebuilt, InboxEntry receiver, InboxEntry sender) {
+        for (InboxEntry entry : new InboxEntry[] { receiver, sender }) {
+            if (entry == null) {
+                continue;
+            }
+            batch.add(entry);
+            rebuilt.add(entry.getId());
+            if (batch.size() == WRITE_BATCH_SIZE) {
+                upsertEntries(batch);
+            }
+        }
+    }
+
+    // Same two steps as recordMessage: the identity and unread count by upsert, then the summary unless a newer one
+    // is already shown
+    private void upsertEntries(List<InboxEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, InboxEntry.class);
+        for (InboxEntry entry : batch) {
+            bulk.upsert(byId(entry.getId()), new Update()
+                    .set("unreadCount", entry.getUnreadCount())
+                    .setOnInsert("userId", entry.getUserId())
+                    .setOnInsert("conversationId", entry.getConversationId())
+                    .setOnInsert("peerId", entry.getPeerId())
+                    .setOnInsert("propertyId", entry.getPropertyId()));
+            Criteria olderSummary = new Criteria().orOperator(
+                    Criteria.where("lastMessageAt").is(null),
+                    Criteria.where("lastMessageAt").lte(entry.getLastMessageAt()));
+            bulk.updateOne(new Query(Criteria.where("id").is(entry.getId()).andOperator(olderSummary)), new Update()
+                    .set("lastMessageId", entry.getLastMessageId())
+                    .set("lastSenderId", entry.getLastSenderId())
+                    .set("lastMessagePreview", entry.getLastMessagePreview())
+                    .set("lastMessageAt", entry.getLastMessageAt()));
+        }
+        bulk.execute();
+        batch.clear();
+    }
+
+    private static InboxEntry summaryFor(String userId, String peerId, Message latest) {
+        InboxEntry entry = new InboxEntry();
+        entry.setId(InboxEntry.idOf(userId, latest.getConversationId()));
+        entry.setUserId(userId);
+        entry.setConversationId(latest.getConversationId());
+        entry.setPeerId(peerId);
+        entry.setPropertyId(latest.getPropertyId());
+        entry.setLastMessageId(latest.getId());
+        entry.setLastSenderId(latest.getSenderId());
+        entry.setLastMessagePreview(InboxEntry.previewOf(latest.getContent()));
+        entry.setLastMessageAt(latest.getCreatedAt());
+        return entry;
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("id").is(id));
+    }
+}
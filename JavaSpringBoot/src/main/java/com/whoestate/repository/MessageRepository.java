@@ -1,6 +1,8 @@
 package com.whoestate.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
@@ -8,9 +10,12 @@ import org.springframework.stereotype.Repository;
 import com.whoestate.entity.Message;
 
 @Repository
-public interface MessageRepository extends MongoRepository<Message, String> {
+public interface MessageRepository extends MongoRepository<Message, String>, MessageRepositoryCustom {
     List<Message> findBySenderId(String senderId);
     List<Message> findByReceiverId(String receiverId);
     List<Message> findByPropertyId(String propertyId);
     List<Message> findBySenderIdAndReceiverId(String senderId, String receiverId);
-}
\ No newline at end of file
+    Stream<Message> streamAllBy();
+    Stream<Message> streamByCreatedAtGreaterThanEqual(LocalDateTime since);
+    Stream<Message> streamByCreatedAtGreaterThanEqualOrderByCreatedAtAsc(LocalDateTime since);
+}
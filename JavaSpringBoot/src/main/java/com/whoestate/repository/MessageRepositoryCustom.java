@@ -0,0 +1,15 @@
+package com.whoestate.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.whoestate.entity.Message;
+import com.whoestate.util.KeysetCursor;
+
+public interface MessageRepositoryCustom {
+    List<Message> findConversationPage(String conversationId, KeysetCursor after, int limit);
+    List<Message> findConversationsSince(Collection<String> conversationIds, KeysetCursor since, int limit);
+    long backfillConversationIds();
+    long markRead(String receiverId, String conversationId, KeysetCursor upTo);
+    Message findAndRemove(String id);
+}
@@ -0,0 +1,101 @@
+package com.whoestate.repository;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.Message;
+import com.whoestate.util.KeysetCursor;
+
+public class MessageRepositoryImpl implements MessageRepositoryCustom {
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Newest first; served entirely by the (conversationId, createdAt desc, _id desc) index
+    @Override
+    public List<Message> findConversationPage(String conversationId, KeysetCursor after, int limit) {
+        Query query = new Query(Criteria.where("conversationId").is(conversationId));
+        if (after != null) {
+            query.addCriteria(after.after("createdAt"));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt", "id")).limit(limit);
+        return mongoTemplate.find(query, Message.class);
+    }
+
+    // One updateMulti over the conversation's unread messages addressed to the reader, optionally only those at or
+    // before the upTo position; returns how many flipped, which is exactly what the inbox unread counters must drop by
+    @Override
+    public long markRead(String receiverId, String conversationId, KeysetCursor upTo) {
+        Criteria unread = Criteria.where("conversationId").is(conversationId)
+                .and("receiverId").is(receiverId)
+                .and("isRead").ne(true);
+        if (upTo != null) {
+            unread.orOperator(
+                    Criteria.where("createdAt").lt(upTo.getTimestamp()),
+                    Criteria.where("createdAt").is(upTo.getTimestamp()).and("id").lte(upTo.getId()));
+        }
+        return mongoTemplate.updateMulti(new Query(unread), new Update().set("isRead", true), Message.class).getModifiedCount();
+    }
+
+    // Returns the message as it was when removed, so callers see its final read state
+    @Override
+    public Message findAndRemove(String id) {
+        return mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(id)), Message.class);
+    }
+
+    // Oldest first from just after the cursor, across several conversations; each one is a range scan of the
+    // conversation index
+    @Override
+    public List<Message> findConversationsSince(Collection<String> conversationIds, KeysetCursor since, int limit) {
+        Query query = new Query(Criteria.where("conversationId").in(conversationIds).orOperator(
+                Criteria.where("createdAt").gt(since.getTimestamp()),
+                Criteria.where("createdAt").is(since.getTimestamp()).and("id").gt(since.getId())));
+        query.with(Sort.by(Sort.Direction.ASC, "createdAt", "id")).limit(limit);
+        return mongoTemplate.find(query, Message.class);
+    }
+
+    // Sets conversationId on messages written before it existed, in unordered bulk batches off one cursor.
+    // Idempotent: only messages still missing the field are touched. Returns the number of messages updated
+    @Override
+    public long backfillConversationIds() {
+        Query missing = new Query(Criteria.where("conversationId").exists(false)
+                .and("senderId").ne(null).and("receiverId").ne(null));
+        missing.fields().include("senderId", "receiverId", "propertyId");
+
+        long updated = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+        try (Stream<Message> messages = mongoTemplate.stream(missing, Message.class)) {
+            Iterator<Message> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                Message message = iterator.next();
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class);
+                }
+                bulk.updateOne(new Query(Criteria.where("id").is(message.getId())), new Update().set("conversationId",
+                        Message.conversationIdOf(message.getSenderId(), message.getReceiverId(), message.getPropertyId())));
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            updated += bulk.execute().getModifiedCount();
+        }
+        return updated;
+    }
+}
@@ -1,6 +1,7 @@
 package com.whoestate.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
@@ -8,9 +9,10 @@ import org.springframework.stereotype.Repository;
 import com.whoestate.entity.Property;
 
 @Repository
-public interface PropertyRepository extends MongoRepository<Property, String> {
+public interface PropertyRepository extends MongoRepository<Property, String>, PropertyRepositoryCustom {
     List<Property> findByUserId(String userId);
     List<Property> findByIsApprovedTrue();
     List<Property> findByCity(String city);
     List<Property> findByPropertyType(String propertyType);
-}
\ No newline at end of file
+    Stream<Property> streamAllBy();
+}
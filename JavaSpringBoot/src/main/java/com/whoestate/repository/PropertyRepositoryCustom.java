@@ -0,0 +1,29 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.Property;
+import com.whoestate.enums.PropertyView;
+import com.whoestate.util.CollectionVersion;
+import com.whoestate.util.KeysetCursor;
+
+public interface PropertyRepositoryCustom {
+    List<Property> findPage(Criteria filter, KeysetCursor after, int limit, PropertyView view);
+    List<Property> findByIds(Collection<String> ids, PropertyView view);
+    Property findAndModify(String id, Update update, LocalDateTime expectedUpdatedAt);
+    Property findFacetFields(String id);
+    Property findAndRemove(String id);
+    void incrementViewCounts(Map<String, Long> deltas);
+    Map<String, Property> setApproval(Collection<String> ids, boolean approved, LocalDateTime updatedAt);
+    List<Property> findAllAndRemove(Collection<String> ids);
+    Map<Integer, String> insertUnordered(List<Property> batch);
+    Map<String, Map<String, Long>> countFacets(Criteria filter, List<String> fields);
+    CollectionVersion collectionVersion();
+    List<String> dropObsoleteIndexes();
+}
@@ -0,0 +1,183 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.whoestate.dto.PropertySummary;
+import com.whoestate.entity.Property;
+import com.whoestate.enums.PropertyView;
+import com.whoestate.search.PropertyFacetCounts;
+import com.whoestate.util.CollectionVersion;
+import com.whoestate.util.IndexCleanup;
+import com.whoestate.util.KeysetCursor;
+
+public class PropertyRepositoryImpl implements PropertyRepositoryCustom {
+
+    // search_price sorted by price, so a price-range search sorted by createdAt had to sort in memory
+    private static final String[] OBSOLETE_INDEXES = { "search_price" };
+    // Set on properties flipped by a moderation request; not mapped on the entity
+    private static final String MODERATION_BATCH = "moderationBatch";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Property> findPage(Criteria filter, KeysetCursor after, int limit, PropertyView view) {
+        Query query = new Query(filter);
+        if (after != null) {
+            query.addCriteria(after.after("createdAt"));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt", "id")).limit(limit);
+        applyView(query, view);
+        return mongoTemplate.find(query, Property.class);
+    }
+
+    @Override
+    public List<Property> findByIds(Collection<String> ids, PropertyView view) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        applyView(query, view);
+        return mongoTemplate.find(query, Property.class);
+    }
+
+    // Single findAndModify returning the post-image. When expectedUpdatedAt is given the write only applies if nobody
+    // changed the document since
+    @Override
+    public Property findAndModify(String id, Update update, LocalDateTime expectedUpdatedAt) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedUpdatedAt != null) {
+            criteria.and("updatedAt").is(expectedUpdatedAt);
+        }
+        return mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Property.class);
+    }
+
+    // Only the fields the facet counts diff, plus the version to make the following write conditional on
+    @Override
+    public Property findFacetFields(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include(PropertyFacetCounts.FIELDS.toArray(new String[0])).include("isApproved", "updatedAt");
+        return mongoTemplate.findOne(query, Property.class);
+    }
+
+    // Unordered bulk insert: one bad document does not stop the rest of the batch.
+    // Returns the failure message for each rejected position in the batch
+    @Override
+    public Map<Integer, String> insertUnordered(List<Property> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Property.class).insert(batch).execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> failures = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+            return failures;
+        }
+    }
+
+    // One updateMulti flips every listed property not already in the target state, so untouched documents keep their
+    // updatedAt, and stamps the flipped ones with a token unique to this call. One read then returns the listed
+    // properties with the fields the facet counts and the text index need. Every property found is a key; its value is
+    // the post-image when this call's write flipped it, null when it was already in the target state
+    @Override
+    public Map<String, Property> setApproval(Collection<String> ids, boolean approved, LocalDateTime updatedAt) {
+        String batch = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(new Query(Criteria.where("id").in(ids).and("isApproved").ne(approved)),
+                new Update().set("isApproved", approved).set("updatedAt", updatedAt).set(MODERATION_BATCH, batch),
+                Property.class);
+
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include(PropertyFacetCounts.FIELDS.toArray(new String[0]))
+                .include("title", "description", "isApproved", "updatedAt", MODERATION_BATCH);
+        Map<String, Property> moderated = new LinkedHashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Property.class))) {
+            Property property = mongoTemplate.getConverter().read(Property.class, document);
+            moderated.put(property.getId(), batch.equals(document.getString(MODERATION_BATCH)) ? property : null);
+        }
+        return moderated;
+    }
+
+    // Returns the removed documents so callers can undo their effect on derived state
+    @Override
+    public List<Property> findAllAndRemove(Collection<String> ids) {
+        return mongoTemplate.findAllAndRemove(new Query(Criteria.where("id").in(ids)), Property.class);
+    }
+
+    // Batched $inc of view count deltas; updatedAt is left alone so ETags and update preconditions are unaffected
+    @Override
+    public void incrementViewCounts(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Property.class);
+        deltas.forEach((id, delta) -> bulk.updateOne(new Query(Criteria.where("id").is(id)), new Update().inc("viewCount", delta)));
+        bulk.execute();
+    }
+
+    @Override
+    public Property findAndRemove(String id) {
+        return mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(id)), Property.class);
+    }
+
+    // One $facet pass: each sub-pipeline groups the filtered documents by one field, skipping missing values
+    @Override
+    public Map<String, Map<String, Long>> countFacets(Criteria filter, List<String> fields) {
+        FacetOperation facets = Aggregation.facet();
+        for (String field : fields) {
+            facets = facets.and(
+                    Aggregation.match(Criteria.where(field).ne(null)),
+                    Aggregation.group(field).count().as("count")).as(field);
+        }
+        Document result = mongoTemplate.aggregate(
+                Aggregation.newAggregation(Aggregation.match(filter), facets), Property.class, Document.class)
+                .getUniqueMappedResult();
+
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (String field : fields) {
+            Map<String, Long> values = new HashMap<>();
+            if (result != null) {
+                for (Document bucket : result.getList(field, Document.class, List.of())) {
+                    values.put(String.valueOf(bucket.get("_id")), ((Number) bucket.get("count")).longValue());
+                }
+            }
+            counts.put(field, values);
+        }
+        return counts;
+    }
+
+    @Override
+    public CollectionVersion collectionVersion() {
+        return CollectionVersion.of(mongoTemplate, Property.class);
+    }
+
+    @Override
+    public List<String> dropObsoleteIndexes() {
+        return IndexCleanup.dropIfPresent(mongoTemplate.indexOps(Property.class), OBSOLETE_INDEXES);
+    }
+
+    // Summary reads leave description, address and all but the first image on the server
+    private void applyView(Query query, PropertyView view) {
+        if (view == PropertyView.Summary) {
+            query.fields().include(PropertySummary.FIELDS).slice("images", 1);
+        }
+    }
+}
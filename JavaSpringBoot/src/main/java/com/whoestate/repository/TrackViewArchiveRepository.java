@@ -0,0 +1,13 @@
+package com.whoestate.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.whoestate.entity.TrackViewArchive;
+
+@Repository
+public interface TrackViewArchiveRepository extends MongoRepository<TrackViewArchive, String>, TrackViewArchiveRepositoryCustom {
+    List<TrackViewArchive> findByPropertyIdOrderByMonthAsc(String propertyId);
+}
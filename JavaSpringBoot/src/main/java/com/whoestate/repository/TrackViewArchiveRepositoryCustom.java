@@ -0,0 +1,9 @@
+package com.whoestate.repository;
+
+import java.util.Collection;
+
+import com.whoestate.entity.TrackViewArchive;
+
+public interface TrackViewArchiveRepositoryCustom {
+    void incrementAll(Collection<TrackViewArchive> deltas);
+}
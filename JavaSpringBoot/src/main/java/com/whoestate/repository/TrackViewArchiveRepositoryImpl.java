@@ -0,0 +1,34 @@
+package com.whoestate.repository;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.TrackViewArchive;
+
+public class TrackViewArchiveRepositoryImpl implements TrackViewArchiveRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementAll(Collection<TrackViewArchive> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrackViewArchive.class);
+        for (TrackViewArchive delta : deltas) {
+            bulk.upsert(new Query(Criteria.where("id").is(delta.getId())), new Update()
+                    .inc("views", delta.getViews())
+                    .inc("entries", delta.getEntries())
+                    .setOnInsert("propertyId", delta.getPropertyId())
+                    .setOnInsert("month", delta.getMonth()));
+        }
+        bulk.execute();
+    }
+}
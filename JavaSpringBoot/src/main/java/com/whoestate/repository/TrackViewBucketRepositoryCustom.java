@@ -0,0 +1,28 @@
+package com.whoestate.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.whoestate.dto.TrackViewStorageStatsDto;
+import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewBucket;
+import com.whoestate.util.KeysetCursor;
+
+public interface TrackViewBucketRepositoryCustom {
+    void pushViews(Collection<TrackView> views);
+    List<TrackView> findViewsByPropertyId(String propertyId);
+    List<TrackView> findViewsByUserId(String userId);
+    List<TrackView> findViewsByUserIdAndPropertyId(String userId, String propertyId);
+    List<TrackView> findEntryPage(String propertyId, String userId, LocalDateTime from, LocalDateTime to,
+                                  KeysetCursor after, int limit);
+    Stream<TrackView> streamEntries(String propertyId, String userId, LocalDateTime from, LocalDateTime to);
+    TrackView findEntry(String id);
+    boolean deleteEntry(String id);
+    List<TrackViewBucket> claimDaysBefore(String day, String token, Duration staleAfter, int limit);
+    long deleteClaimed(Collection<TrackViewBucket> buckets, String token);
+    long migrateFromDocuments();
+    TrackViewStorageStatsDto storageStats(Class<?> entityClass);
+}
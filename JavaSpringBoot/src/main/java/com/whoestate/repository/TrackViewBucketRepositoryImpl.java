@@ -0,0 +1,459 @@
+package com.whoestate.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.analytics.TrackViewConflictException;
+import com.whoestate.dto.TrackViewStorageStatsDto;
+import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewBucket;
+import com.whoestate.util.KeysetCursor;
+
+public class TrackViewBucketRepositoryImpl implements TrackViewBucketRepositoryCustom {
+
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+    private static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final String MIGRATION_KEY = "trackview-buckets";
+    private static final Duration MIGRATION_STALE_AFTER = Duration.ofMinutes(5);
+    // Set on buckets a compaction run has claimed; not mapped on the entity
+    private static final String CLAIM_TOKEN = "compactRun";
+    private static final String CLAIMED_AT = "compactClaimedAt";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.trackviews.bucket-size:200}")
+    private int bucketSize;
+
+    // Views are grouped per (property, day) and appended with one $push/$each upsert per group. The filter only matches
+    // a bucket with room for the whole group, so a full bucket makes the upsert open a new one instead of growing past
+    // the cap; two flushes racing on a fresh day may each open a bucket, which reads treat the same as one.
+    @Override
+    public void pushViews(Collection<TrackView> views) {
+        push(views, false);
+    }
+
+    private void push(Collection<TrackView> views, boolean keepSource) {
+        Map<String, List<TrackViewBucket.Entry>> groups = new LinkedHashMap<>();
+        for (TrackView view : views) {
+            String key = view.getPropertyId() + '\u0000' + view.getViewedAt().toLocalDate();
+            TrackViewBucket.Entry entry = new TrackViewBucket.Entry(view.getUserId(), view.getViewedAt(),
+                    view.getViewCount() != null ? view.getViewCount() : 1L);
+            if (keepSource) {
+                entry.setSourceId(view.getId());
+            }
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrackViewBucket.class);
+        for (Map.Entry<String, List<TrackViewBucket.Entry>> group : groups.entrySet()) {
+            int separator = group.getKey().indexOf('\u0000');
+            String propertyId = group.getKey().substring(0, separator);
+            String day = group.getKey().substring(separator + 1);
+            List<TrackViewBucket.Entry> entries = group.getValue();
+            for (int from = 0; from < entries.size(); from += bucketSize) {
+                List<TrackViewBucket.Entry> chunk = entries.subList(from, Math.min(from + bucketSize, entries.size()));
+                bulk.upsert(new Query(Criteria.where("propertyId").is(propertyId).and("day").is(day)
+                                .and("count").lte(bucketSize - chunk.size())),
+                        new Update().push("views").each(chunk.toArray()).inc("count", chunk.size()));
+            }
+        }
+        bulk.execute();
+    }
+
+    // Folded on the server into one entry per viewer, matching the shape of the one-document-per-pair layout
+    @Override
+    public List<TrackView> findViewsByPropertyId(String propertyId) {
+        List<TrackView> views = fold(Criteria.where("propertyId").is(propertyId), null, "v.u", "userId");
+        views.forEach(view -> view.setPropertyId(propertyId));
+        return views;
+    }
+
+    // Served by the multikey index on v.u; the second match drops the other viewers of each bucket after the unwind
+    @Override
+    public List<TrackView> findViewsByUserId(String userId) {
+        List<TrackView> views = fold(Criteria.where("v.u").is(userId), userId, "propertyId", "propertyId");
+        views.forEach(view -> view.setUserId(userId));
+        return views;
+    }
+
+    @Override
+    public List<TrackView> findViewsByUserIdAndPropertyId(String userId, String propertyId) {
+        List<TrackView> views = fold(Criteria.where("propertyId").is(propertyId).and("v.u").is(userId), userId,
+                "propertyId", "propertyId");
+        views.forEach(view -> view.setUserId(userId));
+        return views;
+    }
+
+    // One row per bucket entry, newest first. A row's id is "<bucket id>:<position in bucket>", which keeps ids unique
+    // and stable for the keyset cursor. Every entry of a bucket falls on the bucket's day, so the page walks days newest
+    // first, sorting one day's entries at a time, and stops as soon as it is full. The next day holding a matching
+    // bucket comes from the day index, so empty days cost nothing.
+    @Override
+    public List<TrackView> findEntryPage(String propertyId, String userId, LocalDateTime from, LocalDateTime to,
+                                         KeysetCursor after, int limit) {
+        LocalDateTime until = to;
+        if (after != null && (until == null || !after.getTimestamp().isAfter(until))) {
+            until = after.getTimestamp().plusNanos(1);
+        }
+        String fromDay = from != null ? from.toLocalDate().toString() : null;
+        String day = newestDay(propertyId, userId, fromDay, until != null ? until.toLocalDate().toString() : null, true);
+        List<TrackView> page = new ArrayList<>(limit);
+        while (day != null && page.size() < limit) {
+            List<AggregationOperation> stages = entryStages(propertyId, userId, from, until, day);
+            if (after != null) {
+                // Raw stage, so the timestamp is converted the way the mapping layer stores LocalDateTime
+                Date timestamp = Date.from(after.getTimestamp().atZone(ZoneId.systemDefault()).toInstant());
+                Document keyset = new Document("$or", List.of(
+                        new Document("viewedAt", new Document("$lt", timestamp)),
+                        new Document("viewedAt", timestamp).append("_id", new Document("$lt", after.getId()))));
+                stages.add(context -> new Document("$match", keyset));
+            }
+            stages.add(context -> new Document("$sort", new Document("viewedAt", -1).append("_id", -1)));
+            stages.add(Aggregation.limit(limit - page.size()));
+            page.addAll(mongoTemplate.aggregate(Aggregation.newAggregation(stages),
+                    mongoTemplate.getCollectionName(TrackViewBucket.class), TrackView.class).getMappedResults());
+            if (page.size() < limit) {
+                day = newestDay(propertyId, userId, fromDay, day, false);
+            }
+        }
+        return page;
+    }
+
+    // The newest day with a bucket matching the filters, up to toDay (inclusive or not); null when there is none
+    private String newestDay(String propertyId, String userId, String fromDay, String toDay, boolean inclusive) {
+        Criteria criteria = new Criteria();
+        if (propertyId != null) {
+            criteria.and("propertyId").is(propertyId);
+        }
+        if (userId != null) {
+            criteria.and("v.u").is(userId);
+        }
+        if (fromDay != null || toDay != null) {
+            Criteria days = criteria.and("day");
+            if (fromDay != null) {
+                days.gte(fromDay);
+            }
+            if (toDay != null) {
+                if (inclusive) {
+                    days.lte(toDay);
+                } else {
+                    days.lt(toDay);
+                }
+            }
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "day")).limit(1);
+        query.fields().include("day");
+        TrackViewBucket bucket = mongoTemplate.findOne(query, TrackViewBucket.class);
+        return bucket != null ? bucket.getDay() : null;
+    }
+
+    // Unsorted: entries come out in bucket order straight off the cursor, so exports never sort in memory
+    @Override
+    public Stream<TrackView> streamEntries(String propertyId, String userId, LocalDateTime from, LocalDateTime to) {
+        return mongoTemplate.aggregateStream(Aggregation.newAggregation(entryStages(propertyId, userId, from, to, null)),
+                mongoTemplate.getCollectionName(TrackViewBucket.class), TrackView.class);
+    }
+
+    // Entry ids are "<bucket id>:<position in bucket>", as produced by findEntryPage and streamEntries
+    @Override
+    public TrackView findEntry(String id) {
+        int position = entryPosition(id);
+        if (position < 0) {
+            return null;
+        }
+        Query query = new Query(Criteria.where("id").is(id.substring(0, id.lastIndexOf(':'))));
+        query.fields().include("propertyId").slice("v", position, 1);
+        TrackViewBucket bucket = mongoTemplate.findOne(query, TrackViewBucket.class);
+        if (bucket == null || bucket.getViews() == null || bucket.getViews().isEmpty()) {
+            return null;
+        }
+        TrackViewBucket.Entry entry = bucket.getViews().get(0);
+        TrackView view = new TrackView();
+        view.setId(id);
+        view.setUserId(entry.getUserId());
+        view.setPropertyId(bucket.getPropertyId());
+        view.setViewedAt(entry.getViewedAt());
+        view.setViewCount(entry.getViews());
+        return view;
+    }
+
+    // Removes the entry and recounts the bucket in one pipeline update. Later entries of the bucket move up one
+    // position, so their ids change
+    @Override
+    public boolean deleteEntry(String id) {
+        int position = entryPosition(id);
+        if (position < 0) {
+            return false;
+        }
+        String bucketId = id.substring(0, id.lastIndexOf(':'));
+        Document filter = new Document("_id", ObjectId.isValid(bucketId) ? new ObjectId(bucketId) : bucketId)
+                .append("v." + position, new Document("$exists", true));
+        Document remaining = new Document("$map", new Document("input", new Document("$filter", new Document("input",
+                new Document("$range", List.of(0, new Document("$size", "$v"))))
+                .append("as", "i")
+                .append("cond", new Document("$ne", List.of("$$i", position)))))
+                .append("as", "i")
+                .append("in", new Document("$arrayElemAt", List.of("$v", "$$i"))));
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(TrackViewBucket.class)).updateOne(filter, List.of(
+                new Document("$set", new Document("v", remaining)),
+                new Document("$set", new Document("count", new Document("$size", "$v"))))).getModifiedCount() > 0;
+    }
+
+    // Stamps up to limit buckets of days before the given one with the run's token and returns the ones the run now
+    // holds. Buckets another run claimed less than staleAfter ago are skipped, so compactors on several nodes split the
+    // work instead of archiving the same buckets
+    @Override
+    public List<TrackViewBucket> claimDaysBefore(String day, String token, Duration staleAfter, int limit) {
+        Date staleBefore = new Date(System.currentTimeMillis() - staleAfter.toMillis());
+        Query candidates = new Query(claimable(day, staleBefore)).limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = new ArrayList<>();
+        for (TrackViewBucket bucket : mongoTemplate.find(candidates, TrackViewBucket.class)) {
+            ids.add(bucket.getId());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        mongoTemplate.updateMulti(new Query(claimable(day, staleBefore)).addCriteria(Criteria.where("id").in(ids)),
+                new Update().set(CLAIM_TOKEN, token).set(CLAIMED_AT, new Date()), TrackViewBucket.class);
+        return mongoTemplate.find(new Query(Criteria.where("id").in(ids).and(CLAIM_TOKEN).is(token)),
+                TrackViewBucket.class);
+    }
+
+    // Deletes each claimed bucket only while it still holds as many entries as when it was read, so views pushed in
+    // meanwhile are never deleted unseen. Returns the number of buckets deleted
+    @Override
+    public long deleteClaimed(Collection<TrackViewBucket> buckets, String token) {
+        if (buckets.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrackViewBucket.class);
+        for (TrackViewBucket bucket : buckets) {
+            bulk.remove(new Query(Criteria.where("id").is(bucket.getId()).and("count").is(bucket.getCount())
+                    .and(CLAIM_TOKEN).is(token)));
+        }
+        return bulk.execute().getDeletedCount();
+    }
+
+    private static Criteria claimable(String day, Date staleBefore) {
+        return Criteria.where("day").lt(day)
+                .orOperator(Criteria.where(CLAIMED_AT).is(null), Criteria.where(CLAIMED_AT).lt(staleBefore));
+    }
+
+    // Copies every track view document into buckets in _id order. Each document becomes one entry stamped with its
+    // latest viewedAt and its viewCount, since the per-view timestamps were never kept, plus its own id. The run first
+    // claims a record in the migrations collection, so two requests or nodes cannot migrate at once, and records the
+    // last copied id after every batch. A failed run can be started again once its claim goes stale: it takes back the
+    // entries of the batch that was pushed but not recorded, then continues after the recorded id, so every document
+    // is copied exactly once. Returns the number of views copied by this run.
+    @Override
+    public long migrateFromDocuments() {
+        String owner = UUID.randomUUID().toString();
+        Document claim = claimMigration(owner);
+        String lastId = claim.getString("lastId");
+        pullUnrecordedEntries(lastId);
+        // Buckets holding views on a first run were written live, not by a migration
+        if (lastId == null && mongoTemplate.exists(new Query(Criteria.where("count").gt(0)), TrackViewBucket.class)) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(MIGRATION_KEY).and("owner").is(owner)),
+                    MIGRATIONS_COLLECTION);
+            throw new TrackViewConflictException("Track view buckets already contain data");
+        }
+
+        long migrated = 0;
+        List<TrackView> batch = new ArrayList<>(MIGRATION_BATCH_SIZE);
+        String batchEnd = lastId;
+        Query documents = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        if (lastId != null) {
+            documents.addCriteria(Criteria.where("id").gt(lastId));
+        }
+        try (Stream<TrackView> views = mongoTemplate.stream(documents, TrackView.class)) {
+            Iterator<TrackView> iterator = views.iterator();
+            int seen = 0;
+            while (iterator.hasNext()) {
+                TrackView view = iterator.next();
+                batchEnd = view.getId();
+                seen++;
+                if (view.getViewedAt() != null) {
+                    batch.add(view);
+                }
+                if (seen == MIGRATION_BATCH_SIZE) {
+                    migrated += migrateBatch(owner, batch, batchEnd);
+                    seen = 0;
+                }
+            }
+        }
+        migrated += migrateBatch(owner, batch, batchEnd);
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(MIGRATION_KEY).and("owner").is(owner)),
+                new Update().set("completedAt", new Date()), MIGRATIONS_COLLECTION);
+        return migrated;
+    }
+
+    private long migrateBatch(String owner, List<TrackView> batch, String batchEnd) {
+        long views = 0;
+        if (!batch.isEmpty()) {
+            push(batch, true);
+            for (TrackView view : batch) {
+                views += view.getViewCount() != null ? view.getViewCount() : 1L;
+            }
+        }
+        if (batchEnd != null) {
+            Update progress = new Update().set("lastId", batchEnd).set("heartbeatAt", new Date()).inc("views", views);
+            if (mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(MIGRATION_KEY).and("owner").is(owner)),
+                    progress, MIGRATIONS_COLLECTION).getMatchedCount() == 0) {
+                throw new TrackViewConflictException("Track view bucket migration was taken over by another run");
+            }
+        }
+        batch.clear();
+        return views;
+    }
+
+    // Upserts the claim unless the migration completed or another run is still heartbeating; in both cases the upsert
+    // collides with the existing record
+    private Document claimMigration(String owner) {
+        Date now = new Date();
+        Date staleBefore = new Date(now.getTime() - MIGRATION_STALE_AFTER.toMillis());
+        Query query = new Query(Criteria.where("_id").is(MIGRATION_KEY).and("completedAt").is(null)
+                .orOperator(Criteria.where("heartbeatAt").is(null), Criteria.where("heartbeatAt").lt(staleBefore)));
+        try {
+            return mongoTemplate.findAndModify(query, new Update().set("owner", owner).set("heartbeatAt", now),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, MIGRATIONS_COLLECTION);
+        } catch (DuplicateKeyException e) {
+            Document existing = mongoTemplate.findById(MIGRATION_KEY, Document.class, MIGRATIONS_COLLECTION);
+            if (existing != null && existing.get("completedAt") != null) {
+                throw new TrackViewConflictException("Track views were already migrated to buckets");
+            }
+            throw new TrackViewConflictException("A track view bucket migration is already running");
+        }
+    }
+
+    // Entries copied after the recorded id (any copied entry when nothing was recorded yet) belong to a batch whose
+    // progress was never written; they are filtered out of their buckets and the counts recomputed
+    private void pullUnrecordedEntries(String lastId) {
+        Document unrecorded = lastId != null ? new Document("$gt", lastId) : new Document("$exists", true);
+        Document keep = lastId != null
+                ? new Document("$not", List.of(new Document("$gt", List.of("$$e.s", lastId))))
+                : new Document("$eq", List.of(new Document("$type", "$$e.s"), "missing"));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(TrackViewBucket.class)).updateMany(
+                new Document("v.s", unrecorded), List.of(
+                        new Document("$set", new Document("v", new Document("$filter", new Document("input", "$v")
+                                .append("as", "e")
+                                .append("cond", keep)))),
+                        new Document("$set", new Document("count", new Document("$size", "$v")))));
+    }
+
+    private static int entryPosition(String id) {
+        int separator = id != null ? id.lastIndexOf(':') : -1;
+        if (separator <= 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(id.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public TrackViewStorageStatsDto storageStats(Class<?> entityClass) {
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        if (!mongoTemplate.collectionExists(collection)) {
+            return new TrackViewStorageStatsDto(collection, 0, 0, 0, 0);
+        }
+        Document stats = mongoTemplate.executeCommand(new Document("collStats", collection));
+        return new TrackViewStorageStatsDto(collection, longOf(stats, "count"), longOf(stats, "size"),
+                longOf(stats, "avgObjSize"), longOf(stats, "totalIndexSize"));
+    }
+
+    // Buckets are narrowed by property, viewer and day first so the indexes apply, then entries by viewer and time
+    // day, when given, limits the match to that day's buckets instead of the range the bounds span
+    private List<AggregationOperation> entryStages(String propertyId, String userId, LocalDateTime from, LocalDateTime to,
+                                                   String day) {
+        Criteria buckets = new Criteria();
+        Criteria entries = new Criteria();
+        if (propertyId != null) {
+            buckets.and("propertyId").is(propertyId);
+        }
+        if (userId != null) {
+            buckets.and("v.u").is(userId);
+            entries.and("v.u").is(userId);
+        }
+        if (day != null) {
+            buckets.and("day").is(day);
+        }
+        if (from != null || to != null) {
+            Criteria days = day == null ? buckets.and("day") : null;
+            Criteria times = entries.and("v.t");
+            if (from != null) {
+                if (days != null) {
+                    days.gte(from.toLocalDate().toString());
+                }
+                times.gte(from);
+            }
+            if (to != null) {
+                if (days != null) {
+                    days.lte(to.toLocalDate().toString());
+                }
+                times.lt(to);
+            }
+        }
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(buckets));
+        stages.add(Aggregation.unwind("v", "position"));
+        stages.add(Aggregation.match(entries));
+        stages.add(context -> new Document("$project", new Document("_id",
+                new Document("$concat", List.of(new Document("$toString", "$_id"), ":", new Document("$toString", "$position"))))
+                .append("userId", "$v.u")
+                .append("propertyId", 1)
+                .append("viewedAt", "$v.t")
+                .append("viewCount", "$v.n")));
+        return stages;
+    }
+
+    private List<TrackView> fold(Criteria buckets, String userId, String groupBy, String groupedAs) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(buckets));
+        stages.add(Aggregation.unwind("v"));
+        if (userId != null) {
+            stages.add(Aggregation.match(Criteria.where("v.u").is(userId)));
+        }
+        stages.add(Aggregation.group(groupBy).max("v.t").as("viewedAt").sum("v.n").as("viewCount"));
+        stages.add(Aggregation.project("viewedAt", "viewCount").and(groupedAs).previousOperation());
+        stages.add(Aggregation.sort(Sort.Direction.DESC, "viewedAt"));
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages),
+                mongoTemplate.getCollectionName(TrackViewBucket.class), TrackView.class).getMappedResults();
+    }
+
+    private static long longOf(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
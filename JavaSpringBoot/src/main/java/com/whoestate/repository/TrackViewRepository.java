@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
 import com.whoestate.entity.TrackView;
 
 @Repository
-public interface TrackViewRepository extends MongoRepository<TrackView, String> {
+public interface TrackViewRepository extends MongoRepository<TrackView, String>, TrackViewRepositoryCustom {
     List<TrackView> findByUserId(String userId);
     List<TrackView> findByPropertyId(String propertyId);
     List<TrackView> findByUserIdAndPropertyId(String userId, String propertyId);
@@ -0,0 +1,24 @@
+package com.whoestate.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.whoestate.entity.TrackView;
+import com.whoestate.util.KeysetCursor;
+
+public interface TrackViewRepositoryCustom {
+    void upsertViews(Collection<TrackView> views);
+    long mergeDuplicatePairs();
+    void ensureUniquePairIndex();
+    boolean hasUniquePairIndex();
+    List<String> dropObsoleteIndexes();
+    List<TrackView> findPage(Criteria filter, KeysetCursor after, int limit);
+    Stream<TrackView> streamNewestFirst(Criteria filter);
+    List<TrackView> claimViewedBefore(LocalDateTime cutoff, String token, Duration staleAfter, int limit);
+    long deleteClaimed(Collection<String> ids, String token, LocalDateTime cutoff);
+}
@@ -0,0 +1,185 @@
+package com.whoestate.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.whoestate.entity.TrackView;
+import com.whoestate.util.IndexCleanup;
+import com.whoestate.util.KeysetCursor;
+
+public class TrackViewRepositoryImpl implements TrackViewRepositoryCustom {
+
+    private static final String UNIQUE_PAIR_INDEX = "user_property_unique";
+    // The single-field viewedAt index (named by Spring, or by Mongo when created by hand), superseded by viewedAt_id
+    private static final String[] OBSOLETE_INDEXES = { "viewedAt", "viewedAt_1" };
+    private static final int DUPLICATE_KEY = 11000;
+    // Set on documents a compaction run has claimed; not mapped on the entity
+    private static final String CLAIM_TOKEN = "compactRun";
+    private static final String CLAIMED_AT = "compactClaimedAt";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // One unordered bulk write with an upsert per (user, property): $max keeps viewedAt from moving backwards when a
+    // delayed flush lands after a newer one, $inc adds the views counted for the pair in this window.
+    // Two upserts inserting the same new pair at once lose on the unique index; the loser is retried and then matches.
+    @Override
+    public void upsertViews(Collection<TrackView> views) {
+        List<TrackView> pending = new ArrayList<>(views);
+        for (int attempt = 0; attempt < 2 && !pending.isEmpty(); attempt++) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TrackView.class);
+            for (TrackView view : pending) {
+                bulk.upsert(pairQuery(view.getUserId(), view.getPropertyId()), new Update()
+                        .max("viewedAt", view.getViewedAt())
+                        .inc("viewCount", view.getViewCount() != null ? view.getViewCount() : 1L));
+            }
+            try {
+                bulk.execute();
+                return;
+            } catch (BulkOperationException e) {
+                List<TrackView> retry = new ArrayList<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY) {
+                        throw e;
+                    }
+                    retry.add(pending.get(error.getIndex()));
+                }
+                pending = retry;
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException(pending.size() + " track view upserts kept colliding on the unique index");
+        }
+    }
+
+    // Folds every duplicated (user, property) group into its oldest document: newest viewedAt, summed viewCount.
+    // Documents written before viewCount existed count as one view each. Returns the number of documents removed.
+    @Override
+    public long mergeDuplicatePairs() {
+        mongoTemplate.updateMulti(new Query(Criteria.where("viewCount").exists(false)),
+                new Update().set("viewCount", 1L), TrackView.class);
+
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "_id")),
+                Aggregation.group("userId", "propertyId")
+                        .push("_id").as("ids")
+                        .first(ConditionalOperators.ifNull("viewCount").then(1L)).as("keptCount")
+                        .max("viewedAt").as("viewedAt")
+                        .sum(ConditionalOperators.ifNull("viewCount").then(1L)).as("viewCount")
+                        .count().as("documents"),
+                Aggregation.match(Criteria.where("documents").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long removed = 0;
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(duplicates, TrackView.class, Document.class)) {
+            Iterator<Document> iterator = groups.iterator();
+            while (iterator.hasNext()) {
+                Document group = iterator.next();
+                List<Object> ids = group.getList("ids", Object.class);
+                // $inc and $max rather than $set, so views flushed into the kept document meanwhile are not overwritten
+                long merged = ((Number) group.get("viewCount")).longValue() - ((Number) group.get("keptCount")).longValue();
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(ids.get(0))),
+                        new Update().max("viewedAt", group.get("viewedAt", Date.class)).inc("viewCount", merged),
+                        TrackView.class);
+                removed += mongoTemplate.remove(new Query(Criteria.where("_id").in(ids.subList(1, ids.size()))),
+                        TrackView.class).getDeletedCount();
+            }
+        }
+        return removed;
+    }
+
+    // Created here rather than with @CompoundIndex: auto index creation would fail on startup while duplicates remain
+    @Override
+    public void ensureUniquePairIndex() {
+        mongoTemplate.indexOps(TrackView.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("propertyId", Sort.Direction.ASC)
+                .unique()
+                .named(UNIQUE_PAIR_INDEX));
+    }
+
+    @Override
+    public boolean hasUniquePairIndex() {
+        return mongoTemplate.indexOps(TrackView.class).getIndexInfo().stream()
+                .anyMatch(index -> UNIQUE_PAIR_INDEX.equals(index.getName()));
+    }
+
+    @Override
+    public List<String> dropObsoleteIndexes() {
+        return IndexCleanup.dropIfPresent(mongoTemplate.indexOps(TrackView.class), OBSOLETE_INDEXES);
+    }
+
+    // Newest first, served by the viewedAt_id index; ties on viewedAt are broken by id so the cursor never skips a row
+    @Override
+    public List<TrackView> findPage(Criteria filter, KeysetCursor after, int limit) {
+        Query query = new Query(filter);
+        if (after != null) {
+            query.addCriteria(after.after("viewedAt"));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "viewedAt", "id")).limit(limit);
+        return mongoTemplate.find(query, TrackView.class);
+    }
+
+    // Cursor-backed; the caller must close the stream
+    @Override
+    public Stream<TrackView> streamNewestFirst(Criteria filter) {
+        return mongoTemplate.stream(new Query(filter).with(Sort.by(Sort.Direction.DESC, "viewedAt", "id")), TrackView.class);
+    }
+
+    // Stamps up to limit documents viewed before the cutoff with the run's token and returns the ones the run now holds.
+    // Documents another run claimed less than staleAfter ago are skipped, so compactors on several nodes split the
+    // work instead of archiving the same documents
+    @Override
+    public List<TrackView> claimViewedBefore(LocalDateTime cutoff, String token, Duration staleAfter, int limit) {
+        Date staleBefore = new Date(System.currentTimeMillis() - staleAfter.toMillis());
+        Query candidates = new Query(claimable(cutoff, staleBefore)).limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = new ArrayList<>();
+        for (TrackView view : mongoTemplate.find(candidates, TrackView.class)) {
+            ids.add(view.getId());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        mongoTemplate.updateMulti(new Query(claimable(cutoff, staleBefore)).addCriteria(Criteria.where("id").in(ids)),
+                new Update().set(CLAIM_TOKEN, token).set(CLAIMED_AT, new Date()), TrackView.class);
+        return mongoTemplate.find(new Query(Criteria.where("id").in(ids).and(CLAIM_TOKEN).is(token)), TrackView.class);
+    }
+
+    // Deletes the run's claimed documents that were not viewed again since the claim
+    @Override
+    public long deleteClaimed(Collection<String> ids, String token, LocalDateTime cutoff) {
+        return mongoTemplate.remove(new Query(Criteria.where("id").in(ids).and(CLAIM_TOKEN).is(token)
+                .and("viewedAt").lt(cutoff)), TrackView.class).getDeletedCount();
+    }
+
+    private static Criteria claimable(LocalDateTime cutoff, Date staleBefore) {
+        return Criteria.where("viewedAt").lt(cutoff)
+                .orOperator(Criteria.where(CLAIMED_AT).is(null), Criteria.where(CLAIMED_AT).lt(staleBefore));
+    }
+
+    private Query pairQuery(String userId, String propertyId) {
+        return new Query(Criteria.where("userId").is(userId).and("propertyId").is(propertyId));
+    }
+}
@@ -0,0 +1,16 @@
+package com.whoestate.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.whoestate.entity.UniqueViewerSketch;
+
+@Repository
+public interface UniqueViewerSketchRepository extends MongoRepository<UniqueViewerSketch, String>, UniqueViewerSketchRepositoryCustom {
+    // Days are ISO dates, so string order is date order and both ends are inclusive
+    @Query("{ 'propertyId': ?0, 'day': { $gte: ?1, $lte: ?2 } }")
+    List<UniqueViewerSketch> findByPropertyIdAndDayRange(String propertyId, String fromDay, String toDay);
+}
@@ -0,0 +1,7 @@
+package com.whoestate.repository;
+
+import com.whoestate.analytics.HyperLogLog;
+
+public interface UniqueViewerSketchRepositoryCustom {
+    void mergeSketch(String propertyId, String day, HyperLogLog delta);
+}
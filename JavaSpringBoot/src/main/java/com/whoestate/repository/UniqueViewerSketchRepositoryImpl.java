@@ -0,0 +1,52 @@
+package com.whoestate.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.analytics.HyperLogLog;
+import com.whoestate.entity.UniqueViewerSketch;
+
+public class UniqueViewerSketchRepositoryImpl implements UniqueViewerSketchRepositoryCustom {
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Read, merge, compare-and-set on version. Another node merging into the same day makes the write miss and
+    // the loop re-reads; merging is idempotent, so a retry can never double count.
+    @Override
+    public void mergeSketch(String propertyId, String day, HyperLogLog delta) {
+        String id = UniqueViewerSketch.idOf(propertyId, day);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            UniqueViewerSketch stored = mongoTemplate.findById(id, UniqueViewerSketch.class);
+            if (stored == null) {
+                UniqueViewerSketch sketch = new UniqueViewerSketch();
+                sketch.setId(id);
+                sketch.setPropertyId(propertyId);
+                sketch.setDay(day);
+                sketch.setSketch(delta.toBytes());
+                try {
+                    mongoTemplate.insert(sketch);
+                    return;
+                } catch (DuplicateKeyException e) {
+                    continue;
+                }
+            }
+
+            HyperLogLog merged = HyperLogLog.fromBytes(stored.getSketch());
+            merged.merge(delta);
+            Query current = new Query(Criteria.where("id").is(id).and("version").is(stored.getVersion()));
+            Update update = new Update().set("sketch", merged.toBytes()).inc("version", 1);
+            if (mongoTemplate.updateFirst(current, update, UniqueViewerSketch.class).getMatchedCount() == 1) {
+                return;
+            }
+        }
+        throw new OptimisticLockingFailureException("Unique viewer sketch " + id + " kept changing during merge");
+    }
+}
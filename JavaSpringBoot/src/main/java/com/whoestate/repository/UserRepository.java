@@ -1,6 +1,7 @@
 package com.whoestate.repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
@@ -8,7 +9,8 @@ import org.springframework.stereotype.Repository;
 import com.whoestate.entity.User;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
-}
\ No newline at end of file
+    Stream<User> streamAllBy();
+}
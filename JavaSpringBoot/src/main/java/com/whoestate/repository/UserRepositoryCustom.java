@@ -0,0 +1,9 @@
+package com.whoestate.repository;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.User;
+
+public interface UserRepositoryCustom {
+    User updateFields(String id, Update update);
+}
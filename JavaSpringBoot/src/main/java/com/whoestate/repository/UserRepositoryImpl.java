@@ -0,0 +1,22 @@
+package com.whoestate.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.whoestate.entity.User;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public User updateFields(String id, Update update) {
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+}
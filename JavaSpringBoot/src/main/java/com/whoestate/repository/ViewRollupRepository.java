@@ -0,0 +1,17 @@
+package com.whoestate.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.whoestate.entity.ViewRollup;
+import com.whoestate.enums.RollupGranularity;
+
+@Repository
+public interface ViewRollupRepository extends MongoRepository<ViewRollup, String>, ViewRollupRepositoryCustom {
+    @Query(value = "{ 'granularity': ?0, 'propertyId': ?1, 'bucket': { $gte: ?2, $lt: ?3 } }", sort = "{ 'bucket': 1 }")
+    List<ViewRollup> findSeries(RollupGranularity granularity, String propertyId, LocalDateTime from, LocalDateTime to);
+}
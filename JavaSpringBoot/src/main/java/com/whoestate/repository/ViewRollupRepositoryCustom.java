@@ -0,0 +1,14 @@
+package com.whoestate.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import com.whoestate.entity.ViewRollup;
+import com.whoestate.enums.RollupGranularity;
+
+public interface ViewRollupRepositoryCustom {
+    void incrementAll(Collection<ViewRollup> deltas);
+    long replaceRange(RollupGranularity granularity, LocalDateTime from, LocalDateTime to, Collection<ViewRollup> rollups);
+    void ensureHourlyExpiry(Duration ttl);
+}
@@ -0,0 +1,99 @@
+package com.whoestate.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+
+import com.whoestate.entity.ViewRollup;
+import com.whoestate.enums.RollupGranularity;
+
+public class ViewRollupRepositoryImpl implements ViewRollupRepositoryCustom {
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+    private static final String HOURLY_EXPIRY_INDEX = "hour_bucket_ttl";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // One unordered bulk of $inc upserts; the bucket fields are only written when the document is created
+    @Override
+    public void incrementAll(Collection<ViewRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ViewRollup.class);
+        for (ViewRollup delta : deltas) {
+            bulk.upsert(new Query(Criteria.where("id").is(delta.getId())), new Update()
+                    .inc("views", delta.getViews())
+                    .setOnInsert("granularity", delta.getGranularity())
+                    .setOnInsert("propertyId", delta.getPropertyId())
+                    .setOnInsert("bucket", delta.getBucket()));
+        }
+        bulk.execute();
+    }
+
+    // Sets each recomputed bucket of one granularity in [from, to) with an upsert, and zeroes stored buckets in the range
+    // that the recomputation no longer has. Nothing is deleted first, so readers never see the range empty and a
+    // concurrent $inc upsert cannot collide with a re-insert. Returns the number of buckets written.
+    @Override
+    public long replaceRange(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                             Collection<ViewRollup> rollups) {
+        Set<String> rebuilt = new HashSet<>();
+        List<Pair<Query, Update>> writes = new ArrayList<>();
+        for (ViewRollup rollup : rollups) {
+            rebuilt.add(rollup.getId());
+            writes.add(Pair.of(new Query(Criteria.where("id").is(rollup.getId())), new Update()
+                    .set("views", rollup.getViews())
+                    .setOnInsert("granularity", rollup.getGranularity())
+                    .setOnInsert("propertyId", rollup.getPropertyId())
+                    .setOnInsert("bucket", rollup.getBucket())));
+        }
+        Query stored = new Query(Criteria.where("granularity").is(granularity).and("bucket").gte(from).lt(to));
+        stored.fields().include("id");
+        try (Stream<ViewRollup> existing = mongoTemplate.stream(stored, ViewRollup.class)) {
+            existing.filter(rollup -> !rebuilt.contains(rollup.getId())).forEach(rollup -> writes.add(Pair.of(
+                    new Query(Criteria.where("id").is(rollup.getId())), new Update().set("views", 0L))));
+        }
+
+        for (int offset = 0; offset < writes.size(); offset += WRITE_BATCH_SIZE) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ViewRollup.class);
+            bulk.upsert(writes.subList(offset, Math.min(offset + WRITE_BATCH_SIZE, writes.size())));
+            bulk.execute();
+        }
+        return writes.size();
+    }
+
+    // Hour buckets are only charted over recent ranges, so Mongo expires them ttl after the hour starts; the partial
+    // filter keeps day and month buckets forever. A changed ttl is applied to the existing index with collMod.
+    @Override
+    public void ensureHourlyExpiry(Duration ttl) {
+        Index index = new Index()
+                .on("bucket", Sort.Direction.ASC)
+                .expire(ttl)
+                .partial(PartialIndexFilter.of(Criteria.where("granularity").is(RollupGranularity.Hour.name())))
+                .named(HOURLY_EXPIRY_INDEX);
+        try {
+            mongoTemplate.indexOps(ViewRollup.class).ensureIndex(index);
+        } catch (RuntimeException e) {
+            mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(ViewRollup.class))
+                    .append("index", new Document("name", HOURLY_EXPIRY_INDEX).append("expireAfterSeconds", ttl.getSeconds())));
+        }
+    }
+}
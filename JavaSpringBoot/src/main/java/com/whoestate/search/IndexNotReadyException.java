@@ -0,0 +1,10 @@
+package com.whoestate.search;
+
+// Thrown by searches while an in-memory index is still being built at startup, so callers can answer 503 instead of
+// returning misleadingly empty results
+public class IndexNotReadyException extends RuntimeException {
+
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,538 @@
+package com.whoestate.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.whoestate.entity.Message;
+
+// In-memory trigram index over message content. Text is folded like the property index, then every three-character
+// window becomes a posting. Postings hold increasing internal document numbers as varint-encoded gaps, so a typical
+// posting costs one byte. A substring query must contain all of its trigrams, a query with typos most of them; both are
+// answered by merging the query's posting lists, and callers verify exact matches against the stored content.
+// Every user also keeps the increasing list of documents they sent or received. A search limited to one user walks
+// that list and probes each posting list through its skip table (the document and byte offset before every
+// SKIP_INTERVAL-th posting), so its cost follows the user's message count rather than the size of the whole index.
+// A delete tombstones its document. Once tombstones pile up, a sweep purges them from the posting lists and user lists
+// a bounded slice per compactStep, each under a short write lock, so new messages are never held up behind a full
+// rewrite. Document numbers are never reused, which keeps every list sorted while a sweep is half done.
+// The index lives on one node's heap: messages created on other nodes only arrive through MessageServiceImpl's
+// periodic catch-up on createdAt, and messages deleted on other nodes are dropped when candidates are loaded.
+@Component
+public class MessageTrigramIndex {
+
+    // 6 bits per character: space, a-z, 0-9 and a hash of anything else. Distinct characters may share a code,
+    // which only adds candidates that verification drops, never loses a match
+    private static final int CHAR_BITS = 6;
+    private static final int TRIGRAMS = 1 << (3 * CHAR_BITS);
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int SKIP_INTERVAL = 64;
+    // Posting and user lists purged per compaction step
+    private static final int COMPACT_STEP_SLOTS = 4096;
+    // A probe costs a binary search plus up to SKIP_INTERVAL decoded gaps, so probing only pays off for a posting list
+    // much longer than the user's list; otherwise the list is decoded and merged
+    private static final int PROBE_FACTOR = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Postings[] postings = new Postings[TRIGRAMS];
+    private final Map<String, Integer> docNumbers = new HashMap<>();
+    private final Map<String, Integer> userNumbers = new HashMap<>();
+    private String[] externalIds = new String[1024];
+    private int[] senders = new int[1024];
+    private int[] receivers = new int[1024];
+    private int[][] userDocs = new int[64][];
+    private int[] userDocCounts = new int[64];
+    private final BitSet deleted = new BitSet();
+    private int nextDoc;
+    private int liveDocs;
+    private int unsweptDeletes;
+    private int sweepCursor = -1;
+    private volatile boolean ready;
+
+    public void index(Message message) {
+        int[] trigrams = trigrams(normalize(message.getContent()));
+        lock.writeLock().lock();
+        try {
+            removeLocked(message.getId());
+            int doc = nextDoc++;
+            ensureDocCapacity(doc + 1);
+            externalIds[doc] = message.getId();
+            senders[doc] = userNumber(message.getSenderId());
+            receivers[doc] = userNumber(message.getReceiverId());
+            addUserDoc(senders[doc], doc);
+            if (receivers[doc] != senders[doc]) {
+                addUserDoc(receivers[doc], doc);
+            }
+            docNumbers.put(message.getId(), doc);
+            for (int trigram : trigrams) {
+                Postings list = postings[trigram];
+                if (list == null) {
+                    list = new Postings();
+                    postings[trigram] = list;
+                }
+                list.add(doc);
+            }
+            liveDocs++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String messageId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(messageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Purges tombstones from the next slice of lists when a sweep is due or running; returns whether one is running
+    @Scheduled(fixedDelayString = "${app.messages.search.compact-interval-ms:200}")
+    public boolean compactStep() {
+        lock.writeLock().lock();
+        try {
+            if (sweepCursor < 0) {
+                if (unsweptDeletes == 0 || unsweptDeletes <= liveDocs * COMPACT_RATIO) {
+                    return false;
+                }
+                // Deletes from here on may miss slices already swept, so they count towards the next sweep
+                sweepCursor = 0;
+                unsweptDeletes = 0;
+            }
+            int users = userNumbers.size();
+            int end = Math.min(sweepCursor + COMPACT_STEP_SLOTS, TRIGRAMS + users);
+            for (int slot = sweepCursor; slot < end; slot++) {
+                if (slot < TRIGRAMS) {
+                    if (postings[slot] != null) {
+                        Postings purged = postings[slot].without(deleted);
+                        postings[slot] = purged.count > 0 ? purged : null;
+                    }
+                } else {
+                    purgeUserDocs(slot - TRIGRAMS);
+                }
+            }
+            sweepCursor = end < TRIGRAMS + users ? end : -1;
+            return sweepCursor >= 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(postings, null);
+            docNumbers.clear();
+            userNumbers.clear();
+            deleted.clear();
+            externalIds = new String[1024];
+            senders = new int[1024];
+            receivers = new int[1024];
+            userDocs = new int[64][];
+            userDocCounts = new int[64];
+            nextDoc = 0;
+            liveDocs = 0;
+            unsweptDeletes = 0;
+            sweepCursor = -1;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Set once the startup build has loaded every stored message; until then results would be incomplete
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean contains(String messageId) {
+        lock.readLock().lock();
+        try {
+            return docNumbers.containsKey(messageId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes held by the posting lists, for sizing the index
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings list : postings) {
+                if (list != null) {
+                    bytes += list.bytes.length + 8L * list.skipDocs.length;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Message ids missing at most maxMissing of the query's trigrams (0 = containing all of them), most matching
+    // trigrams first and the most recently indexed first among equals. A typo breaks up to three trigrams.
+    // participantId, when given, keeps only that user's messages
+    public List<String> candidates(String query, String participantId, int maxMissing, int limit) {
+        // Unpadded, so a query also matches in the middle of a word
+        int[] trigrams = trigrams(normalize(query).trim());
+        if (trigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int required = Math.max(1, trigrams.length - maxMissing);
+        lock.readLock().lock();
+        try {
+            List<int[]> matches;
+            if (participantId != null) {
+                Integer number = userNumbers.get(participantId);
+                if (number == null) {
+                    return List.of();
+                }
+                matches = userMatches(number, trigrams, required, limit);
+            } else {
+                matches = allMatches(trigrams, required, limit);
+            }
+
+            matches.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(b[0], a[0]));
+            List<String> ids = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = 0; i < matches.size() && ids.size() < limit; i++) {
+                ids.add(externalIds[matches.get(i)[0]]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // k-way merge of the posting lists from the latest document down, counting how many lists hold each one
+    private List<int[]> allMatches(int[] trigrams, int required, int limit) {
+        List<int[]> lists = new ArrayList<>(trigrams.length);
+        for (int trigram : trigrams) {
+            if (postings[trigram] != null) {
+                lists.add(postings[trigram].decode());
+            }
+        }
+        if (lists.size() < required) {
+            return new ArrayList<>();
+        }
+
+        int[] positions = new int[lists.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>((a, b) ->
+                Integer.compare(head(lists, positions, b), head(lists, positions, a)));
+        for (int i = 0; i < lists.size(); i++) {
+            heads.add(i);
+        }
+        List<int[]> matches = new ArrayList<>();
+        while (!heads.isEmpty()) {
+            int list = heads.poll();
+            int doc = head(lists, positions, list);
+            int count = 1;
+            advance(heads, lists, positions, list);
+            while (!heads.isEmpty() && head(lists, positions, heads.peek()) == doc) {
+                int same = heads.poll();
+                count++;
+                advance(heads, lists, positions, same);
+            }
+            if (count >= required && !deleted.get(doc)) {
+                matches.add(new int[] { doc, count });
+                // With every trigram required, all matches rank equally and the merge can stop early
+                if (required == trigrams.length && matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Counts, for each of the user's documents, how many of the query's posting lists hold it
+    private List<int[]> userMatches(int user, int[] trigrams, int required, int limit) {
+        int[] docs = userDocs[user];
+        int size = userDocCounts[user];
+        int[] counts = new int[size];
+        int present = 0;
+        for (int trigram : trigrams) {
+            Postings list = postings[trigram];
+            if (list == null) {
+                continue;
+            }
+            present++;
+            if ((long) size * PROBE_FACTOR < list.count) {
+                for (int i = 0; i < size; i++) {
+                    if (list.contains(docs[i])) {
+                        counts[i]++;
+                    }
+                }
+            } else {
+                int[] decoded = list.decode();
+                int j = 0;
+                for (int i = 0; i < size && j < decoded.length; i++) {
+                    while (j < decoded.length && decoded[j] < docs[i]) {
+                        j++;
+                    }
+                    if (j < decoded.length && decoded[j] == docs[i]) {
+                        counts[i]++;
+                    }
+                }
+            }
+        }
+        List<int[]> matches = new ArrayList<>();
+        if (present < required) {
+            return matches;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (counts[i] >= required && !deleted.get(docs[i])) {
+                matches.add(new int[] { docs[i], counts[i] });
+                if (required == trigrams.length && matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Folded the same way as property text, with runs of non-alphanumerics collapsed to one space and the text padded,
+    // so trigrams also capture word starts and ends
+    public static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String folded = TurkishAnalyzer.fold(text);
+        StringBuilder normalized = new StringBuilder(folded.length() + 2).append(' ');
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            } else if (normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        if (normalized.charAt(normalized.length() - 1) != ' ') {
+            normalized.append(' ');
+        }
+        return normalized.length() > 1 ? normalized.toString() : "";
+    }
+
+    // Distinct trigram codes of already normalized text
+    private static int[] trigrams(String normalized) {
+        if (normalized.length() < 3) {
+            return new int[0];
+        }
+        BitSet seen = new BitSet();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            int code = (code(normalized.charAt(i)) << (2 * CHAR_BITS))
+                    | (code(normalized.charAt(i + 1)) << CHAR_BITS)
+                    | code(normalized.charAt(i + 2));
+            seen.set(code);
+        }
+        return seen.stream().toArray();
+    }
+
+    private static int code(char c) {
+        if (c == ' ') {
+            return 0;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return 1 + (c - 'a');
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + (c - '0');
+        }
+        return 37 + (c % 27);
+    }
+
+    private static int head(List<int[]> lists, int[] positions, int list) {
+        return lists.get(list)[lists.get(list).length - 1 - positions[list]];
+    }
+
+    private static void advance(PriorityQueue<Integer> heads, List<int[]> lists, int[] positions, int list) {
+        positions[list]++;
+        if (positions[list] < lists.get(list).length) {
+            heads.add(list);
+        }
+    }
+
+    private int userNumber(String userId) {
+        String key = userId != null ? userId : "";
+        Integer number = userNumbers.get(key);
+        if (number == null) {
+            number = userNumbers.size();
+            userNumbers.put(key, number);
+        }
+        return number;
+    }
+
+    private void removeLocked(String messageId) {
+        Integer doc = docNumbers.remove(messageId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        externalIds[doc] = null;
+        liveDocs--;
+        unsweptDeletes++;
+    }
+
+    private void addUserDoc(int user, int doc) {
+        if (user >= userDocs.length) {
+            int newLength = Math.max(user + 1, userDocs.length * 2);
+            userDocs = Arrays.copyOf(userDocs, newLength);
+            userDocCounts = Arrays.copyOf(userDocCounts, newLength);
+        }
+        int[] docs = userDocs[user];
+        int size = userDocCounts[user];
+        if (docs == null) {
+            docs = new int[4];
+        } else if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+        }
+        docs[size] = doc;
+        userDocs[user] = docs;
+        userDocCounts[user] = size + 1;
+    }
+
+    private void purgeUserDocs(int user) {
+        int[] docs = userDocs[user];
+        if (docs == null) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < userDocCounts[user]; i++) {
+            if (!deleted.get(docs[i])) {
+                docs[kept++] = docs[i];
+            }
+        }
+        userDocs[user] = kept < docs.length / 4 ? Arrays.copyOf(docs, Math.max(4, kept)) : docs;
+        userDocCounts[user] = kept;
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > externalIds.length) {
+            int newLength = Math.max(capacity, externalIds.length * 2);
+            externalIds = Arrays.copyOf(externalIds, newLength);
+            senders = Arrays.copyOf(senders, newLength);
+            receivers = Arrays.copyOf(receivers, newLength);
+        }
+    }
+
+    // Increasing document numbers stored as gaps from the previous one, 7 bits per byte, high bit set on all but the
+    // last byte of each gap. Every SKIP_INTERVAL postings the skip table records the preceding document and the byte
+    // offset, so a single document can be looked up by decoding at most one block
+    private static final class Postings {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int lastDoc = -1;
+        private int[] skipDocs = new int[1];
+        private int[] skipOffsets = new int[1];
+
+        private void add(int doc) {
+            if (count % SKIP_INTERVAL == 0) {
+                int block = count / SKIP_INTERVAL;
+                if (block == skipDocs.length) {
+                    skipDocs = Arrays.copyOf(skipDocs, block * 2);
+                    skipOffsets = Arrays.copyOf(skipOffsets, block * 2);
+                }
+                skipDocs[block] = lastDoc;
+                skipOffsets[block] = length;
+            }
+            int gap = doc - lastDoc;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + 5, bytes.length + (bytes.length >> 1)));
+            }
+            while ((gap & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            bytes[length++] = (byte) gap;
+            lastDoc = doc;
+            count++;
+        }
+
+        private boolean contains(int doc) {
+            if (count == 0 || doc > lastDoc) {
+                return false;
+            }
+            // The last block whose preceding document is below doc is the only one that can hold it
+            int low = 0;
+            int high = (count - 1) / SKIP_INTERVAL;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (skipDocs[mid] < doc) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            int current = skipDocs[low];
+            int position = skipOffsets[low];
+            int end = Math.min(count, (low + 1) * SKIP_INTERVAL);
+            for (int i = low * SKIP_INTERVAL; i < end; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                current += gap;
+                if (current >= doc) {
+                    return current == doc;
+                }
+            }
+            return false;
+        }
+
+        private int[] decode() {
+            int[] docs = new int[count];
+            int doc = -1;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                docs[i] = doc;
+            }
+            return docs;
+        }
+
+        private Postings without(BitSet deleted) {
+            Postings kept = new Postings();
+            for (int doc : decode()) {
+                if (!deleted.get(doc)) {
+                    kept.add(doc);
+                }
+            }
+            return kept;
+        }
+    }
+}
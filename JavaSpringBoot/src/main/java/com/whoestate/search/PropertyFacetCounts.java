@@ -0,0 +1,122 @@
+package com.whoestate.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.whoestate.dto.FacetCount;
+import com.whoestate.dto.PropertyFacetsDto;
+import com.whoestate.entity.Property;
+
+// Per-value counts of approved properties for the filter sidebar. Seeded from one $facet aggregation,
+// then kept current by applying the before/after images of every write, so reads never touch Mongo.
+// Only this node's writes are applied; PropertyServiceImpl reloads the aggregation periodically so writes handled by
+// other nodes show up within the reload interval.
+@Component
+public class PropertyFacetCounts {
+
+    private static final Map<String, Function<Property, String>> FACETS = new LinkedHashMap<>();
+
+    static {
+        FACETS.put("city", Property::getCity);
+        FACETS.put("district", Property::getDistrict);
+        FACETS.put("propertyType", Property::getPropertyType);
+        FACETS.put("propertyStatus", Property::getPropertyStatus);
+    }
+
+    public static final List<String> FIELDS = List.copyOf(FACETS.keySet());
+
+    private final Map<String, Map<String, Long>> counts = new HashMap<>();
+    private boolean loaded;
+    private PropertyFacetsDto snapshot;
+
+    public synchronized void load(Map<String, Map<String, Long>> aggregated) {
+        counts.clear();
+        for (String field : FIELDS) {
+            counts.put(field, new HashMap<>(aggregated.getOrDefault(field, Map.of())));
+        }
+        loaded = true;
+        snapshot = null;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    // Either image may be null (create / delete). Deltas commute, so concurrent writes to one
+    // document still net out correctly whatever order they are applied in.
+    public synchronized void apply(Property before, Property after) {
+        if (!loaded) {
+            return;
+        }
+        boolean changed = false;
+        for (Map.Entry<String, Function<Property, String>> facet : FACETS.entrySet()) {
+            String oldValue = approvedValue(before, facet.getValue());
+            String newValue = approvedValue(after, facet.getValue());
+            if (oldValue != null && oldValue.equals(newValue)) {
+                continue;
+            }
+            Map<String, Long> values = counts.get(facet.getKey());
+            if (oldValue != null) {
+                values.computeIfPresent(oldValue, (value, count) -> count > 1 ? count - 1 : null);
+                changed = true;
+            }
+            if (newValue != null) {
+                values.merge(newValue, 1L, Long::sum);
+                changed = true;
+            }
+        }
+        if (changed) {
+            snapshot = null;
+        }
+    }
+
+    // A change of approval alone: the property's facet values enter or leave the counts whatever its isApproved says
+    public synchronized void applyApproval(Property property, boolean approved) {
+        if (!loaded) {
+            return;
+        }
+        for (Map.Entry<String, Function<Property, String>> facet : FACETS.entrySet()) {
+            String value = facet.getValue().apply(property);
+            if (value == null) {
+                continue;
+            }
+            Map<String, Long> values = counts.get(facet.getKey());
+            if (approved) {
+                values.merge(value, 1L, Long::sum);
+            } else {
+                values.computeIfPresent(value, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+        snapshot = null;
+    }
+
+    // Sorted view is rebuilt at most once per change rather than once per request
+    public synchronized PropertyFacetsDto snapshot() {
+        if (snapshot == null) {
+            snapshot = new PropertyFacetsDto(sorted("city"), sorted("district"),
+                    sorted("propertyType"), sorted("propertyStatus"));
+        }
+        return snapshot;
+    }
+
+    private List<FacetCount> sorted(String field) {
+        List<FacetCount> facetCounts = new ArrayList<>();
+        counts.getOrDefault(field, Map.of()).forEach((value, count) -> facetCounts.add(new FacetCount(value, count)));
+        facetCounts.sort(Comparator.comparingLong(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue));
+        return List.copyOf(facetCounts);
+    }
+
+    private static String approvedValue(Property property, Function<Property, String> getter) {
+        if (property == null || !Boolean.TRUE.equals(property.getIsApproved())) {
+            return null;
+        }
+        return getter.apply(property);
+    }
+}
@@ -0,0 +1,283 @@
+package com.whoestate.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.whoestate.entity.Property;
+
+// In-memory inverted index over property title + description, ranked with BM25.
+// Documents get increasing internal numbers, so postings stay sorted by appending; an update
+// tombstones the old number and appends a new one. Tombstones are compacted away once they pile up, whether they come
+// from deletes or from updates. Each document keeps the updatedAt it was indexed at, so the catch-up can skip
+// properties that have not changed since.
+// The index lives on one node's heap: writes handled by this node update it directly, writes on other nodes only
+// arrive through PropertyServiceImpl's periodic catch-up on updatedAt. Deletes on other nodes are not seen until the
+// next startup build; their ids still rank but are dropped when the results are loaded from Mongo.
+@Component
+public class PropertyTextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int TITLE_BOOST = 3;
+    private static final double COMPACT_RATIO = 0.25;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> docNumbers = new HashMap<>();
+    private String[] externalIds = new String[1024];
+    private int[] docLengths = new int[1024];
+    private LocalDateTime[] versions = new LocalDateTime[1024];
+    private final BitSet deleted = new BitSet();
+    private int nextDoc;
+    private int liveDocs;
+    private long totalLength;
+    private volatile boolean ready;
+
+    public void index(Property property) {
+        Map<String, Integer> termFrequencies = termFrequencies(property);
+        lock.writeLock().lock();
+        try {
+            removeLocked(property.getId());
+            compactIfDueLocked();
+            int doc = nextDoc++;
+            ensureDocCapacity(doc + 1);
+            externalIds[doc] = property.getId();
+            versions[doc] = property.getUpdatedAt();
+            docNumbers.put(property.getId(), doc);
+
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            docLengths[doc] = length;
+            totalLength += length;
+            liveDocs++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String propertyId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(propertyId);
+            compactIfDueLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docNumbers.clear();
+            deleted.clear();
+            externalIds = new String[1024];
+            docLengths = new int[1024];
+            versions = new LocalDateTime[1024];
+            nextDoc = 0;
+            liveDocs = 0;
+            totalLength = 0;
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Set once the startup build has indexed every approved property
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Whether the property is indexed as of the given updatedAt
+    public boolean isIndexedAt(String propertyId, LocalDateTime updatedAt) {
+        lock.readLock().lock();
+        try {
+            Integer doc = docNumbers.get(propertyId);
+            return doc != null && updatedAt != null && updatedAt.equals(versions[doc]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns property ids ordered by descending BM25 score
+    public List<String> search(String query, int limit) {
+        List<String> terms = TurkishAnalyzer.analyze(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / liveDocs;
+            float[] scores = new float[nextDoc];
+            int[] touched = new int[nextDoc];
+            int touchedCount = 0;
+
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (liveDocs - termPostings.size + 0.5) / (termPostings.size + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int doc = termPostings.docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    int tf = termPostings.freqs[i];
+                    float norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+                    if (scores[doc] == 0) {
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += idf * (tf * (K1 + 1)) / (tf + norm);
+                }
+            }
+
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(scores[a], scores[b]));
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (top.size() < limit) {
+                    top.add(doc);
+                } else if (scores[doc] > scores[top.peek()]) {
+                    top.poll();
+                    top.add(doc);
+                }
+            }
+
+            String[] ranked = new String[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = externalIds[top.poll()];
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Integer> termFrequencies(Property property) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : TurkishAnalyzer.analyze(property.getTitle())) {
+            frequencies.merge(term, TITLE_BOOST, Integer::sum);
+        }
+        for (String term : TurkishAnalyzer.analyze(property.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private void removeLocked(String propertyId) {
+        Integer doc = docNumbers.remove(propertyId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        externalIds[doc] = null;
+        versions[doc] = null;
+        totalLength -= docLengths[doc];
+        liveDocs--;
+    }
+
+    private void compactIfDueLocked() {
+        if (nextDoc > 0 && deleted.cardinality() > nextDoc * COMPACT_RATIO) {
+            compactLocked();
+        }
+    }
+
+    // Renumbers live documents densely and drops tombstoned entries from every posting list
+    private void compactLocked() {
+        int[] remap = new int[nextDoc];
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live;
+                externalIds[live] = externalIds[doc];
+                docLengths[live] = docLengths[doc];
+                versions[live] = versions[doc];
+                docNumbers.put(externalIds[live], live);
+                live++;
+            }
+        }
+        Arrays.fill(externalIds, live, nextDoc, null);
+        Arrays.fill(versions, live, nextDoc, null);
+
+        List<String> emptyTerms = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            if (entry.getValue().remap(remap) == 0) {
+                emptyTerms.add(entry.getKey());
+            }
+        }
+        emptyTerms.forEach(postings::remove);
+
+        deleted.clear();
+        nextDoc = live;
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > externalIds.length) {
+            int newLength = Math.max(capacity, externalIds.length * 2);
+            externalIds = Arrays.copyOf(externalIds, newLength);
+            docLengths = Arrays.copyOf(docLengths, newLength);
+            versions = Arrays.copyOf(versions, newLength);
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        private void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        private int remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
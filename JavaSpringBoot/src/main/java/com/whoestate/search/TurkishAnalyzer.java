@@ -0,0 +1,116 @@
+package com.whoestate.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Lower-cases with Turkish rules, folds diacritics to ASCII and strips common inflectional suffixes
+public final class TurkishAnalyzer {
+
+    private static final Locale TURKISH = Locale.forLanguageTag("tr");
+
+    // Short suffixes like "da"/"te" only come off longer words so that "site" does not become "si"
+    private static final int MIN_STEM_LENGTH = 2;
+    private static final int MIN_STEM_LENGTH_SHORT_SUFFIX = 3;
+    private static final int MAX_STEM_PASSES = 2;
+
+    // Longest first so "lerden" wins over "den"
+    private static final String[] SUFFIXES = {
+        "lerinden", "larindan", "lerinde", "larinda", "lerden", "lardan", "lerini", "larini",
+        "lerde", "larda", "lerin", "larin", "leri", "lari", "ler", "lar",
+        "nden", "ndan", "inde", "inda", "unde", "unda", "den", "dan", "ten", "tan",
+        "nin", "nun", "de", "da", "te", "ta", "si", "su"
+    };
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "ve", "ile", "bir", "bu", "su", "o", "da", "de", "ki", "mi", "icin", "gibi", "cok", "daha", "en", "veya"
+    );
+
+    private TurkishAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String folded = fold(text);
+        int start = -1;
+        boolean skippingSuffix = false;
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c);
+            if (skippingSuffix) {
+                // Suffix after an apostrophe on a proper noun, as in "Kadıköy'deki"
+                skippingSuffix = wordChar;
+            } else if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    terms.add(stem(token));
+                }
+                start = -1;
+                skippingSuffix = c == '\'' || c == '\u2019';
+            }
+        }
+        return terms;
+    }
+
+    public static String fold(String text) {
+        String lower = text.toLowerCase(TURKISH);
+        StringBuilder folded = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            switch (c) {
+                case 'ı', 'î' -> folded.append('i');
+                case 'ş' -> folded.append('s');
+                case 'ğ' -> folded.append('g');
+                case 'ç' -> folded.append('c');
+                case 'ö' -> folded.append('o');
+                case 'ü', 'û' -> folded.append('u');
+                case 'â' -> folded.append('a');
+                case '\u0307' -> {
+                    // combining dot left over from a non-Turkish upper-case İ
+                }
+                default -> folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    static String stem(String token) {
+        if (isNumeric(token)) {
+            return token;
+        }
+        String stem = token;
+        for (int pass = 0; pass < MAX_STEM_PASSES; pass++) {
+            String stripped = stripSuffix(stem);
+            if (stripped == stem) {
+                break;
+            }
+            stem = stripped;
+        }
+        return stem;
+    }
+
+    private static String stripSuffix(String token) {
+        for (String suffix : SUFFIXES) {
+            int minStem = suffix.length() >= 3 ? MIN_STEM_LENGTH : MIN_STEM_LENGTH_SHORT_SUFFIX;
+            if (token.length() - suffix.length() >= minStem && token.endsWith(suffix)) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    private static boolean isNumeric(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
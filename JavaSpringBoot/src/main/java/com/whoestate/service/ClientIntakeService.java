@@ -1,6 +1,7 @@
 package com.whoestate.service;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.whoestate.dto.CreateClientIntakeDto;
 import com.whoestate.entity.ClientIntake;
@@ -9,5 +10,6 @@ public interface ClientIntakeService {
     ClientIntake create(CreateClientIntakeDto createClientIntakeDto);
     ClientIntake findById(String id);
     List<ClientIntake> findAll();
+    Stream<ClientIntake> streamAll();
     boolean delete(String id);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.List;
 import com.whoestate.dto.CreateFeatureOptionDto;
 import com.whoestate.dto.UpdateFeatureOptionDto;
 import com.whoestate.entity.FeatureOption;
+import com.whoestate.util.CollectionVersion;
 
 public interface FeatureOptionService {
     FeatureOption create(CreateFeatureOptionDto createFeatureOptionDto);
@@ -14,4 +15,5 @@ public interface FeatureOptionService {
     List<FeatureOption> findActiveFeatures();
     FeatureOption update(String id, UpdateFeatureOptionDto updateFeatureOptionDto);
     boolean delete(String id);
-}
\ No newline at end of file
+    CollectionVersion collectionVersion();
+}
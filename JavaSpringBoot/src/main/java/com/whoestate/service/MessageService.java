@@ -1,17 +1,37 @@
 package com.whoestate.service;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.http.codec.ServerSentEvent;
 
 import com.whoestate.dto.CreateMessageDto;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.MessageSearchStatsDto;
+import com.whoestate.dto.MessageStreamStatsDto;
+import com.whoestate.entity.InboxEntry;
 import com.whoestate.entity.Message;
 
+import reactor.core.publisher.Flux;
+
 public interface MessageService {
     Message create(CreateMessageDto createMessageDto);
     Message findById(String id);
     List<Message> findAll();
+    Stream<Message> streamAll();
     List<Message> findBySenderId(String senderId);
     List<Message> findByReceiverId(String receiverId);
     List<Message> findByPropertyId(String propertyId);
     List<Message> findBySenderIdAndReceiverId(String senderId, String receiverId);
+    CursorPage<Message> findConversation(String conversationId, String cursor, Integer size);
     boolean delete(String id);
+    CursorPage<InboxEntry> inbox(String userId, String cursor, Integer size);
+    long unreadCount(String userId);
+    long markConversationRead(String userId, String conversationId, String upToMessageId);
+    void recordReadReceipt(String userId, String conversationId, String messageId);
+    long rebuildInbox();
+    Flux<ServerSentEvent<Message>> stream(String userId, String lastEventId);
+    MessageStreamStatsDto streamStats();
+    List<Message> search(String query, String participantId, boolean fuzzy, Integer limit);
+    MessageSearchStatsDto searchStats();
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.whoestate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.whoestate.dto.ImportReportDto;
+import com.whoestate.enums.ImportFormat;
+
+public interface PropertyImportService {
+    ImportReportDto importProperties(InputStream body, ImportFormat format) throws IOException;
+}
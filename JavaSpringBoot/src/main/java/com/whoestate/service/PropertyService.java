@@ -1,19 +1,37 @@
 package com.whoestate.service;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import com.whoestate.dto.CacheStatsDto;
 import com.whoestate.dto.CreatePropertyDto;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.ModerationRequestDto;
+import com.whoestate.dto.ModerationResultDto;
+import com.whoestate.dto.PropertyFacetsDto;
+import com.whoestate.dto.PropertySearchDto;
+import com.whoestate.dto.TrendingPropertyDto;
 import com.whoestate.dto.UpdatePropertyDto;
 import com.whoestate.entity.Property;
+import com.whoestate.enums.PropertyView;
+import com.whoestate.util.CollectionVersion;
 
 public interface PropertyService {
     Property create(CreatePropertyDto createPropertyDto);
     Property findById(String id);
     List<Property> findAll();
-    List<Property> findByUserId(String userId);
-    List<Property> findApprovedProperties();
-    List<Property> findByCity(String city);
-    List<Property> findByPropertyType(String propertyType);
+    Stream<Property> streamAll();
+    CursorPage<Property> findByUserId(String userId, String cursor, Integer size, PropertyView view);
+    CursorPage<Property> findApprovedProperties(String cursor, Integer size, PropertyView view);
+    CursorPage<Property> findByCity(String city, String cursor, Integer size, PropertyView view);
+    CursorPage<Property> findByPropertyType(String propertyType, String cursor, Integer size, PropertyView view);
+    CursorPage<Property> search(PropertySearchDto searchDto, String cursor, Integer size, PropertyView view);
+    List<Property> fullTextSearch(String query, Integer limit, PropertyView view);
     Property update(String id, UpdatePropertyDto updatePropertyDto);
     boolean delete(String id);
-}
\ No newline at end of file
+    ModerationResultDto moderate(ModerationRequestDto moderationRequestDto);
+    PropertyFacetsDto facets();
+    List<TrendingPropertyDto> trending(String window, Integer limit);
+    CacheStatsDto cacheStats();
+    CollectionVersion collectionVersion();
+}
@@ -1,15 +1,39 @@
 package com.whoestate.service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.RetentionStatsDto;
+import com.whoestate.dto.TrackViewIngestStatsDto;
+import com.whoestate.dto.TrackViewStorageStatsDto;
+import com.whoestate.dto.UniqueViewersDto;
+import com.whoestate.dto.ViewCounterStatsDto;
+import com.whoestate.dto.ViewStatsDto;
 import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewArchive;
 
 public interface TrackViewService {
-    TrackView create(String userId, String propertyId);
+    boolean record(String userId, String propertyId);
     TrackView findById(String id);
     List<TrackView> findAll();
+    CursorPage<TrackView> findPage(String propertyId, String userId, LocalDateTime from, LocalDateTime to, String cursor, Integer size);
+    Supplier<Stream<TrackView>> export(String propertyId, String userId, LocalDateTime from, LocalDateTime to);
     List<TrackView> findByUserId(String userId);
     List<TrackView> findByPropertyId(String propertyId);
     List<TrackView> findByUserIdAndPropertyId(String userId, String propertyId);
     boolean delete(String id);
+    long migrateToBuckets();
+    List<TrackViewStorageStatsDto> storageStats(String propertyId);
+    List<TrackViewArchive> archive(String propertyId);
+    RetentionStatsDto retentionStats();
+    RetentionStatsDto compactNow();
+    TrackViewIngestStatsDto ingestStats();
+    ViewCounterStatsDto viewCounterStats();
+    UniqueViewersDto uniqueViewers(String propertyId, LocalDate from, LocalDate to);
+    ViewStatsDto viewStats(String propertyId, String granularity, LocalDateTime from, LocalDateTime to);
+    long rebuildRollups(String granularity, LocalDateTime from, LocalDateTime to);
 }
\ No newline at end of file
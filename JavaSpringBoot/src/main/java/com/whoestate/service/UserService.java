@@ -2,6 +2,7 @@ package com.whoestate.service;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import com.whoestate.dto.CreateUserDto;
 import com.whoestate.dto.UpdateUserDto;
@@ -13,6 +14,7 @@ public interface UserService {
     User findByEmail(String email);
     User findById(String id);
     List<User> findAll();
+    Stream<User> streamAll();
     User update(String id, UpdateUserDto updateUserDto);
     boolean updatePassword(String id, String oldPassword, String newPassword);
     boolean delete(String id);
@@ -2,6 +2,7 @@ package com.whoestate.service.impl;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -43,6 +44,12 @@ public class ClientIntakeServiceImpl implements ClientIntakeService {
         return clientIntakeRepository.findAll();
     }
 
+    // Cursor-backed; the caller must close the stream
+    @Override
+    public Stream<ClientIntake> streamAll() {
+        return clientIntakeRepository.streamAllBy();
+    }
+
     @Override
     public boolean delete(String id) {
         if (clientIntakeRepository.existsById(id)) {
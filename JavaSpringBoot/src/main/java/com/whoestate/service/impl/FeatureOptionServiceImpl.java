@@ -1,9 +1,12 @@
 package com.whoestate.service.impl;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.whoestate.dto.CreateFeatureOptionDto;
@@ -11,6 +14,7 @@ import com.whoestate.dto.UpdateFeatureOptionDto;
 import com.whoestate.entity.FeatureOption;
 import com.whoestate.repository.FeatureOptionRepository;
 import com.whoestate.service.FeatureOptionService;
+import com.whoestate.util.CollectionVersion;
 
 @Service
 public class FeatureOptionServiceImpl implements FeatureOptionService {
@@ -24,8 +28,9 @@ public class FeatureOptionServiceImpl implements FeatureOptionService {
         featureOption.setName(createFeatureOptionDto.getName());
         featureOption.setCategory(createFeatureOptionDto.getCategory());
         featureOption.setIsActive(true);
-        featureOption.setCreatedAt(LocalDateTime.now());
-        featureOption.setUpdatedAt(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        featureOption.setCreatedAt(now);
+        featureOption.setUpdatedAt(now);
 
         return featureOptionRepository.save(featureOption);
     }
@@ -52,23 +57,23 @@ public class FeatureOptionServiceImpl implements FeatureOptionService {
 
     @Override
     public FeatureOption update(String id, UpdateFeatureOptionDto updateFeatureOptionDto) {
-        FeatureOption featureOption = findById(id);
-        if (featureOption == null) {
-            return null;
-        }
-
+        Update update = new Update();
         if (updateFeatureOptionDto.getName() != null) {
-            featureOption.setName(updateFeatureOptionDto.getName());
+            update.set("name", updateFeatureOptionDto.getName());
         }
         if (updateFeatureOptionDto.getCategory() != null) {
-            featureOption.setCategory(updateFeatureOptionDto.getCategory());
+            update.set("category", updateFeatureOptionDto.getCategory());
         }
         if (updateFeatureOptionDto.getIsActive() != null) {
-            featureOption.setIsActive(updateFeatureOptionDto.getIsActive());
+            update.set("isActive", updateFeatureOptionDto.getIsActive());
         }
+        update.set("updatedAt", LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
 
-        featureOption.setUpdatedAt(LocalDateTime.now());
-        return featureOptionRepository.save(featureOption);
+        FeatureOption updated = featureOptionRepository.updateFields(id, update, updateFeatureOptionDto.getExpectedUpdatedAt());
+        if (updated == null && updateFeatureOptionDto.getExpectedUpdatedAt() != null && featureOptionRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException("Feature option was modified by someone else");
+        }
+        return updated;
     }
 
     @Override
@@ -79,4 +84,9 @@ public class FeatureOptionServiceImpl implements FeatureOptionService {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CollectionVersion collectionVersion() {
+        return featureOptionRepository.collectionVersion();
+    }
+}
@@ -1,15 +1,38 @@
 package com.whoestate.service.impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.whoestate.dto.CreateMessageDto;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.MessageSearchStatsDto;
+import com.whoestate.dto.MessageStreamStatsDto;
+import com.whoestate.entity.InboxCounter;
+import com.whoestate.entity.InboxEntry;
 import com.whoestate.entity.Message;
+import com.whoestate.messaging.MessagePushRegistry;
+import com.whoestate.messaging.ReadReceiptCoalescer;
+import com.whoestate.repository.InboxCounterRepository;
+import com.whoestate.repository.InboxEntryRepository;
 import com.whoestate.repository.MessageRepository;
+import com.whoestate.search.IndexNotReadyException;
+import com.whoestate.search.MessageTrigramIndex;
 import com.whoestate.service.MessageService;
+import com.whoestate.util.KeysetCursor;
+
+import reactor.core.publisher.Flux;
 
 @Service
 public class MessageServiceImpl implements MessageService {
@@ -17,6 +40,35 @@ public class MessageServiceImpl implements MessageService {
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    @Autowired
+    private InboxCounterRepository inboxCounterRepository;
+
+    @Autowired
+    private MessagePushRegistry messagePushRegistry;
+
+    @Autowired
+    private ReadReceiptCoalescer readReceiptCoalescer;
+
+    @Autowired
+    private MessageTrigramIndex messageTrigramIndex;
+
+    @Value("${app.messages.search.max-typos:1}")
+    private int maxTypos;
+
+    @Value("${app.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.search.catch-up-overlap-ms:60000}")
+    private long searchIndexCatchUpOverlapMs;
+
+    private volatile LocalDateTime searchIndexSyncedTo;
+
     @Override
     public Message create(CreateMessageDto createMessageDto) {
         Message message = new Message();
@@ -24,10 +76,22 @@ public class MessageServiceImpl implements MessageService {
         message.setReceiverId(createMessageDto.getReceiverId());
         message.setPropertyId(createMessageDto.getPropertyId());
         message.setContent(createMessageDto.getContent());
+        message.setConversationId(Message.conversationIdOf(createMessageDto.getSenderId(),
+                createMessageDto.getReceiverId(), createMessageDto.getPropertyId()));
         message.setIsRead(false);
         message.setCreatedAt(LocalDateTime.now());
 
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        try {
+            inboxEntryRepository.recordMessage(saved);
+        } catch (RuntimeException e) {
+            // The message itself is stored; failing the request now would only invite a duplicate resend.
+            // POST /api/messages/inbox/rebuild recomputes the inbox from the messages
+            System.err.println("Inbox update failed for message " + saved.getId() + ": " + e.getMessage());
+        }
+        messageTrigramIndex.index(saved);
+        messagePushRegistry.publish(saved);
+        return saved;
     }
 
     @Override
@@ -40,6 +104,12 @@ public class MessageServiceImpl implements MessageService {
         return messageRepository.findAll();
     }
 
+    // Cursor-backed; the caller must close the stream
+    @Override
+    public Stream<Message> streamAll() {
+        return messageRepository.streamAllBy();
+    }
+
     @Override
     public List<Message> findBySenderId(String senderId) {
         return messageRepository.findBySenderId(senderId);
@@ -60,12 +130,164 @@ public class MessageServiceImpl implements MessageService {
         return messageRepository.findBySenderIdAndReceiverId(senderId, receiverId);
     }
 
+    // Both directions of the chat, newest first
+    @Override
+    public CursorPage<Message> findConversation(String conversationId, String cursor, Integer size) {
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        List<Message> rows = messageRepository.findConversationPage(conversationId, KeysetCursor.decode(cursor), limit + 1);
+        return CursorPage.fromOverfetch(rows, limit, message -> KeysetCursor.of(message.getCreatedAt(), message.getId()));
+    }
+
+    // An unread message leaves the receiver's unread counts with it; the conversation summary may keep showing it
+    // until the next message replaces it
     @Override
     public boolean delete(String id) {
-        if (messageRepository.existsById(id)) {
-            messageRepository.deleteById(id);
-            return true;
+        Message removed = messageRepository.findAndRemove(id);
+        if (removed == null) {
+            return false;
+        }
+        messageTrigramIndex.remove(id);
+        if (!Boolean.TRUE.equals(removed.getIsRead()) && removed.getConversationId() != null) {
+            inboxEntryRepository.adjustUnread(removed.getReceiverId(), removed.getConversationId(), -1);
+        }
+        return true;
+    }
+
+    @Override
+    public CursorPage<InboxEntry> inbox(String userId, String cursor, Integer size) {
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        List<InboxEntry> rows = inboxEntryRepository.findPage(userId, KeysetCursor.decode(cursor), limit + 1);
+        return CursorPage.fromOverfetch(rows, limit, entry -> KeysetCursor.of(entry.getLastMessageAt(), entry.getId()));
+    }
+
+    // The header badge: one primary-key read
+    @Override
+    public long unreadCount(String userId) {
+        return inboxCounterRepository.findById(userId).map(InboxCounter::getUnread).orElse(0L);
+    }
+
+    // The whole conversation, or only up to and including upToMessageId, in one updateMulti
+    @Override
+    public long markConversationRead(String userId, String conversationId, String upToMessageId) {
+        KeysetCursor upTo = null;
+        if (upToMessageId != null && !upToMessageId.isBlank()) {
+            Message message = messageRepository.findById(upToMessageId).orElse(null);
+            if (message == null || !conversationId.equals(message.getConversationId())) {
+                throw new IllegalArgumentException("Message " + upToMessageId + " is not part of this conversation");
+            }
+            upTo = KeysetCursor.of(message.getCreatedAt(), message.getId());
+        }
+        long marked = messageRepository.markRead(userId, conversationId, upTo);
+        inboxEntryRepository.adjustUnread(userId, conversationId, -marked);
+        return marked;
+    }
+
+    // Applied by the coalescer's next flush together with the user's other receipts for the conversation
+    @Override
+    public void recordReadReceipt(String userId, String conversationId, String messageId) {
+        readReceiptCoalescer.record(userId, conversationId, messageId);
+    }
+
+    @Override
+    public long rebuildInbox() {
+        return inboxEntryRepository.rebuild();
+    }
+
+    @Override
+    public Flux<ServerSentEvent<Message>> stream(String userId, String lastEventId) {
+        return messagePushRegistry.subscribe(userId, lastEventId);
+    }
+
+    @Override
+    public MessageStreamStatsDto streamStats() {
+        return new MessageStreamStatsDto(messagePushRegistry.connectionCount(), messagePushRegistry.userCount(),
+                messagePushRegistry.publishedCount(), messagePushRegistry.overflowDisconnectCount(),
+                readReceiptCoalescer.receiptCount(), readReceiptCoalescer.writeCount());
+    }
+
+    // Substring search over message content, or with fuzzy, ranked by how many of the query's trigrams a message shares,
+    // tolerating up to maxTypos typos. participantId limits results to messages the user sent or received
+    @Override
+    public List<Message> search(String query, String participantId, boolean fuzzy, Integer limit) {
+        if (!messageTrigramIndex.isReady()) {
+            throw new IndexNotReadyException("Message search index is still being built");
+        }
+        String normalized = MessageTrigramIndex.normalize(query).trim();
+        if (normalized.length() < 3) {
+            throw new IllegalArgumentException("Search query needs at least 3 letters or digits");
+        }
+        int resolved = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        // Trigrams can all be present without the query being, so substring search over-fetches and verifies
+        List<String> ids = fuzzy
+                ? messageTrigramIndex.candidates(normalized, participantId, 3 * maxTypos, resolved)
+                : messageTrigramIndex.candidates(normalized, participantId, 0, resolved * 4);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Message> byId = new HashMap<>();
+        for (Message message : messageRepository.findAllById(ids)) {
+            byId.put(message.getId(), message);
+        }
+        List<Message> ranked = new ArrayList<>(Math.min(ids.size(), resolved));
+        for (String id : ids) {
+            Message message = byId.get(id);
+            if (message == null || (!fuzzy && !MessageTrigramIndex.normalize(message.getContent()).contains(normalized))) {
+                continue;
+            }
+            ranked.add(message);
+            if (ranked.size() == resolved) {
+                break;
+            }
+        }
+        return ranked;
+    }
+
+    @Override
+    public MessageSearchStatsDto searchStats() {
+        return new MessageSearchStatsDto(messageTrigramIndex.size(), messageTrigramIndex.postingBytes());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        LocalDateTime started = LocalDateTime.now();
+        messageTrigramIndex.clear();
+        try (Stream<Message> messages = messageRepository.streamAllBy()) {
+            messages.forEach(messageTrigramIndex::index);
+        }
+        searchIndexSyncedTo = started;
+        messageTrigramIndex.markReady();
+        System.out.println("Message search index built with " + messageTrigramIndex.size() + " messages");
+    }
+
+    // Picks up messages created on other nodes. Content never changes after create, so messages already indexed are
+    // skipped rather than reindexed, which would only leave tombstones behind
+    @Scheduled(fixedDelayString = "${app.search.catch-up-interval-ms:30000}",
+            initialDelayString = "${app.search.catch-up-interval-ms:30000}")
+    public void catchUpSearchIndex() {
+        LocalDateTime syncedTo = searchIndexSyncedTo;
+        if (syncedTo == null) {
+            return;
+        }
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = syncedTo.minusNanos(searchIndexCatchUpOverlapMs * 1_000_000);
+        try (Stream<Message> messages = messageRepository.streamByCreatedAtGreaterThanEqual(since)) {
+            messages.filter(message -> !messageTrigramIndex.contains(message.getId()))
+                    .forEach(messageTrigramIndex::index);
+        }
+        searchIndexSyncedTo = started;
+    }
+
+    // Gives messages stored before conversationId existed their key, so old chats show up in the conversation timeline.
+    // Every node runs this at startup, so an empty inbox is only reported: the rebuild walks every message and is
+    // started once by an admin through POST /api/messages/inbox/rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillConversationIds() {
+        long updated = messageRepository.backfillConversationIds();
+        if (updated > 0) {
+            System.out.println("Backfilled conversationId on " + updated + " messages");
+        }
+        if (inboxEntryRepository.count() == 0 && messageRepository.count() > 0) {
+            System.out.println("Inbox is empty but messages exist; run POST /api/messages/inbox/rebuild to build it");
         }
-        return false;
     }
 }
\ No newline at end of file
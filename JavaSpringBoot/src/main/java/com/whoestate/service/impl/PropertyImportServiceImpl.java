@@ -0,0 +1,393 @@
+package com.whoestate.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whoestate.dto.CreatePropertyDto;
+import com.whoestate.dto.ImportReportDto;
+import com.whoestate.dto.ImportRowError;
+import com.whoestate.entity.Property;
+import com.whoestate.enums.ImportFormat;
+import com.whoestate.repository.PropertyRepository;
+import com.whoestate.service.PropertyImportService;
+import com.whoestate.util.CsvReader;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+// The request thread parses and validates while a writer pool runs the insert batches. A semaphore caps the
+// batches in flight, so a slow database applies back-pressure to the parser instead of buffering the upload.
+// Imported listings start unapproved like any new listing, so the text index and facet counts are unaffected.
+@Service
+public class PropertyImportServiceImpl implements PropertyImportService {
+
+    private static final String IMAGE_SEPARATOR = "|";
+    private static final int WRITER_THREADS = 2;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-in-flight-batches:2}")
+    private int maxInFlightBatches;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    private final ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "property-import-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public ImportReportDto importProperties(InputStream body, ImportFormat format) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        RowSource rows = format == ImportFormat.Csv ? new CsvRows(reader) : new NdjsonRows(reader);
+        Report report = new Report(maxReportedErrors);
+        Semaphore inFlight = new Semaphore(Math.max(1, maxInFlightBatches));
+        List<PendingBatch> pending = new ArrayList<>();
+        int batches = 0;
+
+        try {
+            Batch batch = new Batch(Math.max(1, batchSize));
+            ParsedRow row;
+            while ((row = rows.next()) != null) {
+                report.rowsRead++;
+                if (row.error != null) {
+                    report.fail(row.number, row.error);
+                    continue;
+                }
+                String violations = validate(row.dto);
+                if (violations != null) {
+                    report.fail(row.number, violations);
+                    continue;
+                }
+                batch.add(row.number, PropertyServiceImpl.newProperty(row.dto, LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS)));
+                if (batch.isFull()) {
+                    pending.add(submit(batch, inFlight));
+                    batches++;
+                    batch = new Batch(Math.max(1, batchSize));
+                    collectFinished(pending, report);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pending.add(submit(batch, inFlight));
+                batches++;
+            }
+        } finally {
+            // Never return while a batch for this request is still writing
+            for (PendingBatch written : pending) {
+                collect(written, report);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        report.inserted = report.rowsRead - report.failed;
+        report.errors.sort(Comparator.comparingLong(ImportRowError::getRow));
+        return new ImportReportDto(report.rowsRead, report.inserted, report.failed, batches, elapsedMs,
+                report.errors, report.errorsTruncated);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+    }
+
+    private PendingBatch submit(Batch batch, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        try {
+            return new PendingBatch(batch, writers.submit(() -> {
+                try {
+                    return write(batch);
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private List<ImportRowError> write(Batch batch) {
+        Map<Integer, String> failures;
+        try {
+            failures = propertyRepository.insertUnordered(batch.properties);
+        } catch (RuntimeException e) {
+            // Not a per-row rejection (connection loss, timeout): part of the batch may have been written, but the
+            // server cannot say which part, so every row of it is reported
+            return batchFailed(batch, e);
+        }
+        List<ImportRowError> errors = new ArrayList<>(failures.size());
+        failures.forEach((index, message) -> errors.add(new ImportRowError(batch.rows.get(index), message)));
+        return errors;
+    }
+
+    // Drains completed batches from the head so the pending list stays short on large uploads
+    private void collectFinished(List<PendingBatch> pending, Report report) {
+        int done = 0;
+        while (done < pending.size() && pending.get(done).future.isDone()) {
+            collect(pending.get(done), report);
+            done++;
+        }
+        pending.subList(0, done).clear();
+    }
+
+    // Never throws, so one failed batch neither hides the report nor stops the wait for the batches after it
+    private void collect(PendingBatch written, Report report) {
+        List<ImportRowError> errors;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                errors = written.future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                errors = batchFailed(written.batch, e.getCause());
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (ImportRowError error : errors) {
+            report.fail(error.getRow(), error.getMessage());
+        }
+    }
+
+    private static List<ImportRowError> batchFailed(Batch batch, Throwable cause) {
+        String message = "Batch write failed, row may not have been imported: " + cause.getMessage();
+        List<ImportRowError> errors = new ArrayList<>(batch.rows.size());
+        for (Long row : batch.rows) {
+            errors.add(new ImportRowError(row, message));
+        }
+        return errors;
+    }
+
+    private String validate(CreatePropertyDto dto) {
+        Set<ConstraintViolation<CreatePropertyDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private static String describe(Exception e) {
+        if (e instanceof JsonProcessingException jsonException) {
+            return "Malformed row: " + jsonException.getOriginalMessage();
+        }
+        if (e.getCause() instanceof JsonProcessingException jsonException) {
+            return "Malformed row: " + jsonException.getOriginalMessage();
+        }
+        return "Malformed row: " + e.getMessage();
+    }
+
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    // One JSON object per line; blank lines are skipped but still counted for row numbers
+    private final class NdjsonRows implements RowSource {
+        private final BufferedReader reader;
+        private final ObjectReader rowReader = objectMapper.readerFor(CreatePropertyDto.class);
+        private long line;
+
+        private NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return ParsedRow.ok(line, rowReader.readValue(text));
+                } catch (JsonProcessingException e) {
+                    return ParsedRow.failed(line, describe(e));
+                }
+            }
+            return null;
+        }
+    }
+
+    // First record is the header; images are a single column separated by "|"
+    private final class CsvRows implements RowSource {
+        private final CsvReader reader;
+        private List<String> header;
+        private long record;
+        private boolean exhausted;
+
+        private CsvRows(BufferedReader reader) {
+            this.reader = new CsvReader(reader);
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            if (header == null) {
+                header = reader.next();
+                if (header == null) {
+                    return null;
+                }
+                header = header.stream().map(String::trim).toList();
+            }
+            List<String> fields;
+            do {
+                if (exhausted) {
+                    return null;
+                }
+                record++;
+                try {
+                    fields = reader.next();
+                } catch (IllegalArgumentException e) {
+                    // An open quote swallows the rest of the input, so nothing after it can be parsed
+                    exhausted = true;
+                    return ParsedRow.failed(record, describe(e));
+                }
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            if (fields.size() != header.size()) {
+                return ParsedRow.failed(record, "Expected " + header.size() + " columns but found " + fields.size());
+            }
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String value = fields.get(i).trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if ("images".equals(header.get(i))) {
+                    values.put("images", Arrays.stream(value.split("\\" + IMAGE_SEPARATOR)).map(String::trim)
+                            .filter(image -> !image.isEmpty()).toList());
+                } else {
+                    values.put(header.get(i), value);
+                }
+            }
+            try {
+                return ParsedRow.ok(record, objectMapper.convertValue(values, CreatePropertyDto.class));
+            } catch (IllegalArgumentException e) {
+                return ParsedRow.failed(record, describe(e));
+            }
+        }
+    }
+
+    private static final class ParsedRow {
+        private final long number;
+        private final CreatePropertyDto dto;
+        private final String error;
+
+        private ParsedRow(long number, CreatePropertyDto dto, String error) {
+            this.number = number;
+            this.dto = dto;
+            this.error = error;
+        }
+
+        private static ParsedRow ok(long number, CreatePropertyDto dto) {
+            return new ParsedRow(number, dto, null);
+        }
+
+        private static ParsedRow failed(long number, String error) {
+            return new ParsedRow(number, null, error);
+        }
+    }
+
+    private static final class PendingBatch {
+        private final Batch batch;
+        private final Future<List<ImportRowError>> future;
+
+        private PendingBatch(Batch batch, Future<List<ImportRowError>> future) {
+            this.batch = batch;
+            this.future = future;
+        }
+    }
+
+    private static final class Batch {
+        private final int capacity;
+        private final List<Property> properties;
+        private final List<Long> rows;
+
+        private Batch(int capacity) {
+            this.capacity = capacity;
+            this.properties = new ArrayList<>(capacity);
+            this.rows = new ArrayList<>(capacity);
+        }
+
+        private void add(long row, Property property) {
+            rows.add(row);
+            properties.add(property);
+        }
+
+        private boolean isFull() {
+            return properties.size() >= capacity;
+        }
+
+        private boolean isEmpty() {
+            return properties.isEmpty();
+        }
+    }
+
+    // Only touched from the request thread
+    private static final class Report {
+        private final int maxErrors;
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long inserted;
+        private long failed;
+        private boolean errorsTruncated;
+
+        private Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void fail(long row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowError(row, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
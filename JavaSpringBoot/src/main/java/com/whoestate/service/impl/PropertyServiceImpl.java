@@ -1,25 +1,92 @@
 package com.whoestate.service.impl;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.whoestate.analytics.TrendingTracker;
+import com.whoestate.dto.CacheStatsDto;
 import com.whoestate.dto.CreatePropertyDto;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.ModerationRequestDto;
+import com.whoestate.dto.ModerationResultDto;
+import com.whoestate.dto.PropertyFacetsDto;
+import com.whoestate.dto.PropertySearchDto;
+import com.whoestate.dto.PropertySummary;
+import com.whoestate.dto.TrendingPropertyDto;
 import com.whoestate.dto.UpdatePropertyDto;
 import com.whoestate.entity.Property;
+import com.whoestate.enums.ModerationAction;
+import com.whoestate.enums.ModerationOutcome;
+import com.whoestate.enums.PropertyView;
 import com.whoestate.repository.PropertyRepository;
+import com.whoestate.search.IndexNotReadyException;
+import com.whoestate.search.PropertyFacetCounts;
+import com.whoestate.search.PropertyTextIndex;
 import com.whoestate.service.PropertyService;
+import com.whoestate.util.CollectionVersion;
+import com.whoestate.util.KeysetCursor;
 
 @Service
 public class PropertyServiceImpl implements PropertyService {
 
+    private static final int TEXT_INDEX_BATCH_SIZE = 1000;
+    private static final int UPDATE_ATTEMPTS = 3;
+
     @Autowired
     private PropertyRepository propertyRepository;
 
+    @Autowired
+    private PropertyTextIndex propertyTextIndex;
+
+    @Autowired
+    private PropertyFacetCounts propertyFacetCounts;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private Cache<String, Property> propertyCache;
+
+    @Value("${app.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.search.catch-up-overlap-ms:60000}")
+    private long textIndexCatchUpOverlapMs;
+
+    private volatile LocalDateTime textIndexSyncedTo;
+
     @Override
     public Property create(CreatePropertyDto createPropertyDto) {
+        Property saved = propertyRepository.save(newProperty(createPropertyDto, LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS)));
+        refreshTextIndex(saved);
+        propertyFacetCounts.apply(null, saved);
+        return saved;
+    }
+
+    // Shared with the bulk importer so both paths build identical documents
+    static Property newProperty(CreatePropertyDto createPropertyDto, LocalDateTime now) {
         Property property = new Property();
         property.setTitle(createPropertyDto.getTitle());
         property.setDescription(createPropertyDto.getDescription());
@@ -34,15 +101,16 @@ public class PropertyServiceImpl implements PropertyService {
         property.setArea(createPropertyDto.getArea());
         property.setImages(createPropertyDto.getImages());
         property.setUserId(createPropertyDto.getUserId());
-        property.setCreatedAt(LocalDateTime.now());
-        property.setUpdatedAt(LocalDateTime.now());
-
-        return propertyRepository.save(property);
+        property.setViewCount(0L);
+        property.setCreatedAt(now);
+        property.setUpdatedAt(now);
+        return property;
     }
 
     @Override
     public Property findById(String id) {
-        return propertyRepository.findById(id).orElse(null);
+        // Concurrent misses for the same id wait on a single load; missing ids are not cached
+        return propertyCache.get(id, key -> propertyRepository.findById(key).orElse(null));
     }
 
     @Override
@@ -50,83 +118,345 @@ public class PropertyServiceImpl implements PropertyService {
         return propertyRepository.findAll();
     }
 
+    // Cursor-backed; the caller must close the stream
+    @Override
+    public Stream<Property> streamAll() {
+        return propertyRepository.streamAllBy();
+    }
+
     @Override
-    public List<Property> findByUserId(String userId) {
-        return propertyRepository.findByUserId(userId);
+    public CursorPage<Property> findByUserId(String userId, String cursor, Integer size, PropertyView view) {
+        return findPage(Criteria.where("userId").is(userId), cursor, size, view);
     }
 
     @Override
-    public List<Property> findApprovedProperties() {
-        return propertyRepository.findByIsApprovedTrue();
+    public CursorPage<Property> findApprovedProperties(String cursor, Integer size, PropertyView view) {
+        return findPage(Criteria.where("isApproved").is(true), cursor, size, view);
     }
 
     @Override
-    public List<Property> findByCity(String city) {
-        return propertyRepository.findByCity(city);
+    public CursorPage<Property> findByCity(String city, String cursor, Integer size, PropertyView view) {
+        return findPage(Criteria.where("city").is(city), cursor, size, view);
     }
 
     @Override
-    public List<Property> findByPropertyType(String propertyType) {
-        return propertyRepository.findByPropertyType(propertyType);
+    public CursorPage<Property> findByPropertyType(String propertyType, String cursor, Integer size, PropertyView view) {
+        return findPage(Criteria.where("propertyType").is(propertyType), cursor, size, view);
+    }
+
+    @Override
+    public CursorPage<Property> search(PropertySearchDto searchDto, String cursor, Integer size, PropertyView view) {
+        return findPage(buildSearchCriteria(searchDto), cursor, size, view);
+    }
+
+    @Override
+    public List<Property> fullTextSearch(String query, Integer limit, PropertyView view) {
+        if (!propertyTextIndex.isReady()) {
+            throw new IndexNotReadyException("Full-text index is still being built");
+        }
+        List<String> ids = propertyTextIndex.search(query, resolvePageSize(limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Property> byId = new HashMap<>();
+        for (Property property : propertyRepository.findByIds(ids, view)) {
+            byId.put(property.getId(), property);
+        }
+        List<Property> ranked = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Property property = byId.get(id);
+            if (property != null) {
+                ranked.add(property);
+            }
+        }
+        return ranked;
     }
 
     @Override
     public Property update(String id, UpdatePropertyDto updatePropertyDto) {
-        Property property = findById(id);
-        if (property == null) {
-            return null;
+        Update update = new Update();
+        setIfPresent(update, "title", updatePropertyDto.getTitle());
+        setIfPresent(update, "description", updatePropertyDto.getDescription());
+        setIfPresent(update, "address", updatePropertyDto.getAddress());
+        setIfPresent(update, "city", updatePropertyDto.getCity());
+        setIfPresent(update, "district", updatePropertyDto.getDistrict());
+        setIfPresent(update, "price", updatePropertyDto.getPrice());
+        setIfPresent(update, "propertyType", updatePropertyDto.getPropertyType());
+        setIfPresent(update, "propertyStatus", updatePropertyDto.getPropertyStatus());
+        setIfPresent(update, "bedrooms", updatePropertyDto.getBedrooms());
+        setIfPresent(update, "bathrooms", updatePropertyDto.getBathrooms());
+        setIfPresent(update, "area", updatePropertyDto.getArea());
+        setIfPresent(update, "images", updatePropertyDto.getImages());
+        setIfPresent(update, "isApproved", updatePropertyDto.getIsApproved());
+        update.set("updatedAt", LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+
+        LocalDateTime expectedUpdatedAt = updatePropertyDto.getExpectedUpdatedAt();
+        boolean touchesFacets = updatePropertyDto.getCity() != null || updatePropertyDto.getDistrict() != null
+                || updatePropertyDto.getPropertyType() != null || updatePropertyDto.getPropertyStatus() != null
+                || updatePropertyDto.getIsApproved() != null;
+        if (!touchesFacets) {
+            // Nothing the facet counts track can change, so the single conditional findAndModify is enough
+            Property updated = propertyRepository.findAndModify(id, update, expectedUpdatedAt);
+            if (updated == null) {
+                if (expectedUpdatedAt != null && propertyRepository.existsById(id)) {
+                    throw new OptimisticLockingFailureException("Property was modified by someone else");
+                }
+                return null;
+            }
+            propertyCache.invalidate(id);
+            refreshTextIndex(updated);
+            return updated;
+        }
+
+        // The facet counts need the values the write replaced. A projected read supplies them, and the write only
+        // applies while the document is still at the version read, so the two images are exactly one write apart.
+        // A concurrent write in between makes the update retry against the new version.
+        for (int attempt = 0; attempt < UPDATE_ATTEMPTS; attempt++) {
+            Property previous = propertyRepository.findFacetFields(id);
+            if (previous == null) {
+                return null;
+            }
+            if (expectedUpdatedAt != null && !expectedUpdatedAt.equals(previous.getUpdatedAt())) {
+                throw new OptimisticLockingFailureException("Property was modified by someone else");
+            }
+            Property updated = propertyRepository.findAndModify(id, update, previous.getUpdatedAt());
+            if (updated != null) {
+                propertyCache.invalidate(id);
+                refreshTextIndex(updated);
+                propertyFacetCounts.apply(previous, updated);
+                return updated;
+            }
+        }
+        throw new OptimisticLockingFailureException("Property is being modified concurrently, try again");
+    }
+
+    @Override
+    public boolean delete(String id) {
+        Property removed = propertyRepository.findAndRemove(id);
+        if (removed == null) {
+            return false;
+        }
+        propertyCache.invalidate(id);
+        propertyTextIndex.remove(id);
+        propertyFacetCounts.apply(removed, null);
+        return true;
+    }
+
+    // Deletes are one findAllAndRemove for the whole batch, approvals one updateMulti plus one read
+    @Override
+    public ModerationResultDto moderate(ModerationRequestDto moderationRequestDto) {
+        Set<String> ids = new LinkedHashSet<>(moderationRequestDto.getIds());
+        Map<String, ModerationOutcome> outcomes = new LinkedHashMap<>();
+        ids.forEach(id -> outcomes.put(id, ModerationOutcome.NotFound));
+        int changed = 0;
+
+        if (moderationRequestDto.getAction() == ModerationAction.Delete) {
+            List<Property> removed = propertyRepository.findAllAndRemove(ids);
+            for (Property property : removed) {
+                outcomes.put(property.getId(), ModerationOutcome.Deleted);
+                propertyTextIndex.remove(property.getId());
+                propertyFacetCounts.apply(property, null);
+            }
+            changed = removed.size();
+        } else {
+            // One updateMulti and one read for the whole batch: a document only counts as changed, and only moves the
+            // facet counts, when this request's write is the one that flipped it
+            boolean approve = moderationRequestDto.getAction() == ModerationAction.Approve;
+            ModerationOutcome done = approve ? ModerationOutcome.Approved : ModerationOutcome.Rejected;
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            for (Map.Entry<String, Property> entry : propertyRepository.setApproval(ids, approve, now).entrySet()) {
+                Property updated = entry.getValue();
+                if (updated == null) {
+                    outcomes.put(entry.getKey(), ModerationOutcome.Unchanged);
+                    continue;
+                }
+                outcomes.put(entry.getKey(), done);
+                refreshTextIndex(updated);
+                propertyFacetCounts.applyApproval(updated, approve);
+                changed++;
+            }
         }
 
-        if (updatePropertyDto.getTitle() != null) {
-            property.setTitle(updatePropertyDto.getTitle());
+        propertyCache.invalidateAll(ids);
+        return new ModerationResultDto(moderationRequestDto.getAction(), changed, outcomes);
+    }
+
+    @Override
+    public PropertyFacetsDto facets() {
+        if (!propertyFacetCounts.isLoaded()) {
+            loadFacetCounts();
         }
-        if (updatePropertyDto.getDescription() != null) {
-            property.setDescription(updatePropertyDto.getDescription());
+        return propertyFacetCounts.snapshot();
+    }
+
+    // Ranking comes from the in-memory snapshot; listings are hydrated through the detail cache
+    @Override
+    public List<TrendingPropertyDto> trending(String window, Integer limit) {
+        int max = resolvePageSize(limit);
+        List<TrendingPropertyDto> trending = new ArrayList<>(max);
+        for (TrendingTracker.TrendingScore score : trendingTracker.top(window)) {
+            if (trending.size() == max) {
+                break;
+            }
+            Property property = findById(score.getPropertyId());
+            if (property != null && Boolean.TRUE.equals(property.getIsApproved())) {
+                trending.add(new TrendingPropertyDto(PropertySummary.from(property), score.getViews(), score.getScore()));
+            }
+        }
+        return trending;
+    }
+
+    @Override
+    public CacheStatsDto cacheStats() {
+        return new CacheStatsDto(propertyCache.estimatedSize(), propertyCache.stats());
+    }
+
+    @Override
+    public CollectionVersion collectionVersion() {
+        return propertyRepository.collectionVersion();
+    }
+
+    // Only approved listings are searchable, so the index follows the approval flag
+    private void refreshTextIndex(Property property) {
+        if (Boolean.TRUE.equals(property.getIsApproved())) {
+            propertyTextIndex.index(property);
+        } else {
+            propertyTextIndex.remove(property.getId());
         }
-        if (updatePropertyDto.getAddress() != null) {
-            property.setAddress(updatePropertyDto.getAddress());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildTextIndex() {
+        LocalDateTime started = LocalDateTime.now();
+        propertyTextIndex.clear();
+        Criteria approved = Criteria.where("isApproved").is(true);
+        KeysetCursor after = null;
+        List<Property> batch;
+        do {
+            batch = propertyRepository.findPage(approved, after, TEXT_INDEX_BATCH_SIZE, PropertyView.Full);
+            for (Property property : batch) {
+                propertyTextIndex.index(property);
+            }
+            if (!batch.isEmpty()) {
+                Property last = batch.get(batch.size() - 1);
+                after = KeysetCursor.of(last.getCreatedAt(), last.getId());
+            }
+        } while (batch.size() == TEXT_INDEX_BATCH_SIZE);
+        textIndexSyncedTo = started;
+        propertyTextIndex.markReady();
+        System.out.println("Full-text index built with " + propertyTextIndex.size() + " properties");
+    }
+
+    // Picks up properties created, edited or moderated on other nodes. The window reaches back by the overlap so
+    // clock skew between nodes and writes still in flight are not missed. Properties already indexed at their current
+    // updatedAt are skipped, since reindexing them would only leave tombstones behind. Every property in the window is
+    // also dropped from this node's detail cache, so edits made elsewhere stop being served stale after one pass
+    @Scheduled(fixedDelayString = "${app.search.catch-up-interval-ms:30000}",
+            initialDelayString = "${app.search.catch-up-interval-ms:30000}")
+    public void catchUpTextIndex() {
+        LocalDateTime syncedTo = textIndexSyncedTo;
+        if (syncedTo == null) {
+            return;
         }
-        if (updatePropertyDto.getCity() != null) {
-            property.setCity(updatePropertyDto.getCity());
+        LocalDateTime started = LocalDateTime.now();
+        Criteria changed = Criteria.where("updatedAt").gte(syncedTo.minusNanos(textIndexCatchUpOverlapMs * 1_000_000));
+        KeysetCursor after = null;
+        List<Property> batch;
+        do {
+            batch = propertyRepository.findPage(changed, after, TEXT_INDEX_BATCH_SIZE, PropertyView.Full);
+            for (Property property : batch) {
+                propertyCache.invalidate(property.getId());
+                if (!Boolean.TRUE.equals(property.getIsApproved())
+                        || !propertyTextIndex.isIndexedAt(property.getId(), property.getUpdatedAt())) {
+                    refreshTextIndex(property);
+                }
+            }
+            if (!batch.isEmpty()) {
+                Property last = batch.get(batch.size() - 1);
+                after = KeysetCursor.of(last.getCreatedAt(), last.getId());
+            }
+        } while (batch.size() == TEXT_INDEX_BATCH_SIZE);
+        textIndexSyncedTo = started;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void dropObsoleteIndexes() {
+        for (String name : propertyRepository.dropObsoleteIndexes()) {
+            System.out.println("Dropped obsolete index " + name + " on properties");
         }
-        if (updatePropertyDto.getDistrict() != null) {
-            property.setDistrict(updatePropertyDto.getDistrict());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFacetCounts() {
+        propertyFacetCounts.load(propertyRepository.countFacets(Criteria.where("isApproved").is(true), PropertyFacetCounts.FIELDS));
+    }
+
+    // Writes on other nodes never reach this node's counts, so they are recounted from scratch every interval; in
+    // between, only this node's own writes move them
+    @Scheduled(fixedDelayString = "${app.facets.reload-interval-ms:300000}",
+            initialDelayString = "${app.facets.reload-interval-ms:300000}")
+    public void reloadFacetCounts() {
+        loadFacetCounts();
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
         }
-        if (updatePropertyDto.getPrice() != null) {
-            property.setPrice(updatePropertyDto.getPrice());
+    }
+
+    private CursorPage<Property> findPage(Criteria filter, String cursor, Integer size, PropertyView view) {
+        int limit = resolvePageSize(size);
+        List<Property> rows = propertyRepository.findPage(filter, KeysetCursor.decode(cursor), limit + 1, view);
+        return CursorPage.fromOverfetch(rows, limit, property -> KeysetCursor.of(property.getCreatedAt(), property.getId()));
+    }
+
+    // Equality fields first so one of the search_* compound indexes can serve them, ranges last
+    static Criteria buildSearchCriteria(PropertySearchDto searchDto) {
+        Criteria criteria = Criteria.where("isApproved").is(true);
+        if (searchDto.getCity() != null) {
+            criteria.and("city").is(searchDto.getCity());
         }
-        if (updatePropertyDto.getPropertyType() != null) {
-            property.setPropertyType(updatePropertyDto.getPropertyType());
+        if (searchDto.getDistrict() != null) {
+            criteria.and("district").is(searchDto.getDistrict());
         }
-        if (updatePropertyDto.getPropertyStatus() != null) {
-            property.setPropertyStatus(updatePropertyDto.getPropertyStatus());
+        if (searchDto.getPropertyType() != null) {
+            criteria.and("propertyType").is(searchDto.getPropertyType());
         }
-        if (updatePropertyDto.getBedrooms() != null) {
-            property.setBedrooms(updatePropertyDto.getBedrooms());
+        if (searchDto.getPropertyStatus() != null) {
+            criteria.and("propertyStatus").is(searchDto.getPropertyStatus());
         }
-        if (updatePropertyDto.getBathrooms() != null) {
-            property.setBathrooms(updatePropertyDto.getBathrooms());
+        if (searchDto.getMinPrice() != null || searchDto.getMaxPrice() != null) {
+            Criteria price = criteria.and("price");
+            if (searchDto.getMinPrice() != null) {
+                price.gte(searchDto.getMinPrice());
+            }
+            if (searchDto.getMaxPrice() != null) {
+                price.lte(searchDto.getMaxPrice());
+            }
         }
-        if (updatePropertyDto.getArea() != null) {
-            property.setArea(updatePropertyDto.getArea());
+        if (searchDto.getMinBedrooms() != null) {
+            criteria.and("bedrooms").gte(searchDto.getMinBedrooms());
         }
-        if (updatePropertyDto.getImages() != null) {
-            property.setImages(updatePropertyDto.getImages());
+        if (searchDto.getMinBathrooms() != null) {
+            criteria.and("bathrooms").gte(searchDto.getMinBathrooms());
         }
-        if (updatePropertyDto.getIsApproved() != null) {
-            property.setIsApproved(updatePropertyDto.getIsApproved());
+        if (searchDto.getMinArea() != null || searchDto.getMaxArea() != null) {
+            Criteria area = criteria.and("area");
+            if (searchDto.getMinArea() != null) {
+                area.gte(searchDto.getMinArea());
+            }
+            if (searchDto.getMaxArea() != null) {
+                area.lte(searchDto.getMaxArea());
+            }
         }
-
-        property.setUpdatedAt(LocalDateTime.now());
-        return propertyRepository.save(property);
+        return criteria;
     }
 
-    @Override
-    public boolean delete(String id) {
-        if (propertyRepository.existsById(id)) {
-            propertyRepository.deleteById(id);
-            return true;
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
         }
-        return false;
+        return Math.min(size, maxPageSize);
     }
-}
\ No newline at end of file
+}
@@ -1,42 +1,116 @@
 package com.whoestate.service.impl;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
+import com.whoestate.analytics.PropertyViewCounter;
+import com.whoestate.analytics.TrackViewBuffer;
+import com.whoestate.analytics.TrackViewCompactor;
+import com.whoestate.analytics.TrackViewConflictException;
+import com.whoestate.analytics.UniqueViewerCounter;
+import com.whoestate.analytics.ViewRollupCounter;
+import com.whoestate.dto.CursorPage;
+import com.whoestate.dto.RetentionStatsDto;
+import com.whoestate.dto.TrackViewIngestStatsDto;
+import com.whoestate.dto.TrackViewStorageStatsDto;
+import com.whoestate.dto.UniqueViewersDto;
+import com.whoestate.dto.ViewBucketDto;
+import com.whoestate.dto.ViewCounterStatsDto;
+import com.whoestate.dto.ViewStatsDto;
 import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewArchive;
+import com.whoestate.entity.TrackViewBucket;
+import com.whoestate.entity.ViewRollup;
+import com.whoestate.enums.RollupGranularity;
+import com.whoestate.enums.TrackViewStorage;
+import com.whoestate.repository.TrackViewArchiveRepository;
+import com.whoestate.repository.TrackViewBucketRepository;
 import com.whoestate.repository.TrackViewRepository;
+import com.whoestate.repository.ViewRollupRepository;
 import com.whoestate.service.TrackViewService;
+import com.whoestate.util.KeysetCursor;
 
 @Service
 public class TrackViewServiceImpl implements TrackViewService {
 
+    // Views reach the rollups through the track view buffer and then the rollup counter, each flushing every few
+    // seconds, so a bucket this long past its end no longer receives increments
+    private static final Duration ROLLUP_SETTLE_TIME = Duration.ofMinutes(5);
+
     @Autowired
     private TrackViewRepository trackViewRepository;
 
-    @Override
-    public TrackView create(String userId, String propertyId) {
-        // Check if a track view already exists for this user and property
-        List<TrackView> existing = trackViewRepository.findByUserIdAndPropertyId(userId, propertyId);
-        if (!existing.isEmpty()) {
-            // If exists, return the existing one or update the timestamp
-            TrackView trackView = existing.get(0);
-            trackView.setViewedAt(LocalDateTime.now());
-            return trackViewRepository.save(trackView);
-        }
+    @Autowired
+    private TrackViewBucketRepository trackViewBucketRepository;
+
+    @Autowired
+    private TrackViewBuffer trackViewBuffer;
+
+    @Autowired
+    private PropertyViewCounter propertyViewCounter;
+
+    @Autowired
+    private UniqueViewerCounter uniqueViewerCounter;
+
+    @Autowired
+    private ViewRollupCounter viewRollupCounter;
+
+    @Autowired
+    private ViewRollupRepository viewRollupRepository;
 
-        TrackView trackView = new TrackView();
-        trackView.setUserId(userId);
-        trackView.setPropertyId(propertyId);
-        trackView.setViewedAt(LocalDateTime.now());
+    @Autowired
+    private TrackViewArchiveRepository trackViewArchiveRepository;
+
+    @Autowired
+    private TrackViewCompactor trackViewCompactor;
+
+    @Value("${app.trackviews.storage:documents}")
+    private String storage;
+
+    @Value("${app.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.uniques.max-range-days:366}")
+    private int maxUniqueRangeDays;
 
-        return trackViewRepository.save(trackView);
+    @Value("${app.rollups.max-points:1000}")
+    private int maxRollupPoints;
+
+    @Value("${app.retention.trackviews.max-age-days:180}")
+    private int maxAgeDays;
+
+    @Value("${app.retention.hour-rollups.ttl-days:90}")
+    private int hourRollupTtlDays;
+
+    // Write-behind: the view is queued and persisted by the next flush, which also feeds the derived counters
+    @Override
+    public boolean record(String userId, String propertyId) {
+        return trackViewBuffer.offer(userId, propertyId);
     }
 
     @Override
     public TrackView findById(String id) {
+        if (usesBuckets()) {
+            return trackViewBucketRepository.findEntry(id);
+        }
         return trackViewRepository.findById(id).orElse(null);
     }
 
@@ -45,27 +119,289 @@ public class TrackViewServiceImpl implements TrackViewService {
         return trackViewRepository.findAll();
     }
 
+    // Filters are optional and combine; from is inclusive, to exclusive
+    @Override
+    public CursorPage<TrackView> findPage(String propertyId, String userId, LocalDateTime from, LocalDateTime to,
+                                          String cursor, Integer size) {
+        checkRange(from, to);
+        int limit = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<TrackView> rows = usesBuckets()
+                ? trackViewBucketRepository.findEntryPage(blankToNull(propertyId), blankToNull(userId), from, to, after, limit + 1)
+                : trackViewRepository.findPage(filter(propertyId, userId, from, to), after, limit + 1);
+        return CursorPage.fromOverfetch(rows, limit, view -> KeysetCursor.of(view.getViewedAt(), view.getId()));
+    }
+
+    // Arguments are checked now, while an error can still become a 400; the cursor is only opened once the
+    // response starts streaming. Streams are cursor-backed and the caller must close them. Per-pair documents stream
+    // newest first off the viewedAt_id index; bucket entries stream in bucket order, since sorting every entry would
+    // need a blocking sort over the whole range
+    @Override
+    public Supplier<Stream<TrackView>> export(String propertyId, String userId, LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        if (usesBuckets()) {
+            return () -> trackViewBucketRepository.streamEntries(blankToNull(propertyId), blankToNull(userId), from, to);
+        }
+        Criteria filter = filter(propertyId, userId, from, to);
+        return () -> trackViewRepository.streamNewestFirst(filter);
+    }
+
     @Override
     public List<TrackView> findByUserId(String userId) {
+        if (usesBuckets()) {
+            return trackViewBucketRepository.findViewsByUserId(userId);
+        }
         return trackViewRepository.findByUserId(userId);
     }
 
     @Override
     public List<TrackView> findByPropertyId(String propertyId) {
+        if (usesBuckets()) {
+            return trackViewBucketRepository.findViewsByPropertyId(propertyId);
+        }
         return trackViewRepository.findByPropertyId(propertyId);
     }
 
     @Override
     public List<TrackView> findByUserIdAndPropertyId(String userId, String propertyId) {
+        if (usesBuckets()) {
+            return trackViewBucketRepository.findViewsByUserIdAndPropertyId(userId, propertyId);
+        }
         return trackViewRepository.findByUserIdAndPropertyId(userId, propertyId);
     }
 
     @Override
     public boolean delete(String id) {
+        if (usesBuckets()) {
+            return trackViewBucketRepository.deleteEntry(id);
+        }
         if (trackViewRepository.existsById(id)) {
             trackViewRepository.deleteById(id);
             return true;
         }
         return false;
     }
+
+    // Merges the duplicates left by the old check-then-save create, then enforces one document per pair. Once the unique
+    // index exists no duplicate can remain, so later startups skip the full-collection scan
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateDuplicatePairs() {
+        if (trackViewRepository.hasUniquePairIndex()) {
+            return;
+        }
+        long removed = trackViewRepository.mergeDuplicatePairs();
+        trackViewRepository.ensureUniquePairIndex();
+        if (removed > 0) {
+            System.out.println("Merged " + removed + " duplicate track views");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void dropObsoleteIndexes() {
+        for (String name : trackViewRepository.dropObsoleteIndexes()) {
+            System.out.println("Dropped obsolete index " + name + " on trackviews");
+        }
+    }
+
+    // One-off copy of the per-pair documents into buckets, run before switching app.trackviews.storage to buckets.
+    // The repository records its progress, so a concurrent request is refused and a failed run resumes where it stopped.
+    @Override
+    public long migrateToBuckets() {
+        return trackViewBucketRepository.migrateFromDocuments();
+    }
+
+    // Size of both layouts side by side; with a propertyId, also times that property's viewer list read from each
+    @Override
+    public List<TrackViewStorageStatsDto> storageStats(String propertyId) {
+        TrackViewStorageStatsDto documents = trackViewBucketRepository.storageStats(TrackView.class);
+        TrackViewStorageStatsDto buckets = trackViewBucketRepository.storageStats(TrackViewBucket.class);
+        if (propertyId != null && !propertyId.isBlank()) {
+            long started = System.nanoTime();
+            trackViewRepository.findByPropertyId(propertyId);
+            documents.setPropertyReadMs((System.nanoTime() - started) / 1_000_000);
+            started = System.nanoTime();
+            trackViewBucketRepository.findViewsByPropertyId(propertyId);
+            buckets.setPropertyReadMs((System.nanoTime() - started) / 1_000_000);
+        }
+        return List.of(documents, buckets);
+    }
+
+    @Override
+    public List<TrackViewArchive> archive(String propertyId) {
+        return trackViewArchiveRepository.findByPropertyIdOrderByMonthAsc(propertyId);
+    }
+
+    @Override
+    public RetentionStatsDto retentionStats() {
+        return trackViewCompactor.stats();
+    }
+
+    @Override
+    public RetentionStatsDto compactNow() {
+        return trackViewCompactor.compactNow();
+    }
+
+    @Override
+    public TrackViewIngestStatsDto ingestStats() {
+        return trackViewBuffer.stats();
+    }
+
+    @Override
+    public ViewCounterStatsDto viewCounterStats() {
+        return propertyViewCounter.stats();
+    }
+
+    // Defaults to the last 30 days including today
+    @Override
+    public UniqueViewersDto uniqueViewers(String propertyId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxUniqueRangeDays) {
+            throw new IllegalArgumentException("Range must not exceed " + maxUniqueRangeDays + " days");
+        }
+        return uniqueViewerCounter.uniques(propertyId, start, end);
+    }
+
+    // Served from the rollups only; buckets without views are filled with zeros so charts get a continuous series
+    @Override
+    public ViewStatsDto viewStats(String propertyId, String granularity, LocalDateTime from, LocalDateTime to) {
+        RollupGranularity rollupGranularity = RollupGranularity.fromParam(granularity);
+        String rollupProperty = propertyId != null && !propertyId.isBlank() ? propertyId : ViewRollup.ALL_PROPERTIES;
+        LocalDateTime end = rollupGranularity.next(rollupGranularity.truncate(to != null ? to : LocalDateTime.now()));
+        LocalDateTime start = from != null ? rollupGranularity.truncate(from) : defaultStart(rollupGranularity, end);
+        List<LocalDateTime> buckets = bucketsBetween(rollupGranularity, start, end);
+
+        Map<LocalDateTime, Long> stored = new HashMap<>();
+        for (ViewRollup rollup : viewRollupRepository.findSeries(rollupGranularity, rollupProperty, start, end)) {
+            stored.put(rollup.getBucket(), rollup.getViews());
+        }
+        List<ViewBucketDto> series = new ArrayList<>(buckets.size());
+        long total = 0;
+        for (LocalDateTime bucket : buckets) {
+            long views = stored.getOrDefault(bucket, 0L);
+            series.add(new ViewBucketDto(bucket, views));
+            total += views;
+        }
+        return new ViewStatsDto(rollupProperty, rollupGranularity, start, end, total, series);
+    }
+
+    // Only bucket storage keeps a timestamp per flushed view; per-pair documents keep just each pair's last view, which
+    // would move every earlier view of the pair into the wrong bucket. Raw data older than the retention cutoff is
+    // gone, and buckets that may still receive live increments are left to the counter, so both are refused.
+    @Override
+    public long rebuildRollups(String granularity, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (!usesBuckets()) {
+            throw new TrackViewConflictException("Rollups can only be rebuilt from bucket storage: per-pair track views keep only each pair's last view");
+        }
+        RollupGranularity rollupGranularity = RollupGranularity.fromParam(granularity);
+        LocalDateTime start = rollupGranularity.truncate(from);
+        LocalDateTime end = rollupGranularity.next(rollupGranularity.truncate(to));
+        bucketsBetween(rollupGranularity, start, end);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (maxAgeDays > 0) {
+            LocalDateTime cutoff = now.toLocalDate().minusDays(maxAgeDays).atStartOfDay();
+            if (start.isBefore(cutoff)) {
+                throw new IllegalArgumentException("Track views before " + cutoff + " have been compacted and cannot be replayed");
+            }
+        }
+        if (rollupGranularity == RollupGranularity.Hour && hourRollupTtlDays > 0
+                && start.isBefore(now.minusDays(hourRollupTtlDays))) {
+            throw new IllegalArgumentException("Hour rollups older than " + hourRollupTtlDays + " days expire and are not rebuilt");
+        }
+        LocalDateTime settled = rollupGranularity.truncate(now.minus(ROLLUP_SETTLE_TIME));
+        if (end.isAfter(settled)) {
+            throw new IllegalArgumentException("Only buckets ending before " + settled + " can be rebuilt");
+        }
+
+        Map<String, ViewRollup> rebuilt = new HashMap<>();
+        try (Stream<TrackView> views = trackViewBucketRepository.streamEntries(null, null, start, end)) {
+            views.forEach(view -> {
+                LocalDateTime bucket = rollupGranularity.truncate(view.getViewedAt());
+                long count = view.getViewCount() != null ? view.getViewCount() : 1L;
+                addRollup(rebuilt, rollupGranularity, view.getPropertyId(), bucket, count);
+                addRollup(rebuilt, rollupGranularity, ViewRollup.ALL_PROPERTIES, bucket, count);
+            });
+        }
+        return viewRollupRepository.replaceRange(rollupGranularity, start, end, rebuilt.values());
+    }
+
+    private static void addRollup(Map<String, ViewRollup> rollups, RollupGranularity granularity, String propertyId,
+                                  LocalDateTime bucket, long views) {
+        String id = ViewRollup.idOf(granularity, propertyId, bucket);
+        ViewRollup rollup = rollups.computeIfAbsent(id, key -> {
+            ViewRollup created = new ViewRollup();
+            created.setId(key);
+            created.setGranularity(granularity);
+            created.setPropertyId(propertyId);
+            created.setBucket(bucket);
+            return created;
+        });
+        rollup.setViews(rollup.getViews() + views);
+    }
+
+    private Criteria filter(String propertyId, String userId, LocalDateTime from, LocalDateTime to) {
+        Criteria criteria = new Criteria();
+        if (blankToNull(propertyId) != null) {
+            criteria.and("propertyId").is(propertyId);
+        }
+        if (blankToNull(userId) != null) {
+            criteria.and("userId").is(userId);
+        }
+        if (from != null || to != null) {
+            Criteria viewedAt = criteria.and("viewedAt");
+            if (from != null) {
+                viewedAt.gte(from);
+            }
+            if (to != null) {
+                viewedAt.lt(to);
+            }
+        }
+        return criteria;
+    }
+
+    private void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private boolean usesBuckets() {
+        return TrackViewStorage.fromProperty(storage) == TrackViewStorage.Buckets;
+    }
+
+    private LocalDateTime defaultStart(RollupGranularity granularity, LocalDateTime end) {
+        switch (granularity) {
+            case Hour:
+                return end.minusHours(24);
+            case Day:
+                return end.minusDays(30);
+            default:
+                return end.minusMonths(12);
+        }
+    }
+
+    private List<LocalDateTime> bucketsBetween(RollupGranularity granularity, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        List<LocalDateTime> buckets = new ArrayList<>();
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = granularity.next(bucket)) {
+            if (buckets.size() == maxRollupPoints) {
+                throw new IllegalArgumentException("Range must not exceed " + maxRollupPoints + " buckets");
+            }
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
 }
\ No newline at end of file
@@ -4,8 +4,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -92,30 +94,44 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
 
+    // Cursor-backed; the caller must close the stream
     @Override
-    public User update(String id, UpdateUserDto updateUserDto) {
-        User user = findById(id);
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
+    public Stream<User> streamAll() {
+        return userRepository.streamAllBy();
+    }
 
+    @Override
+    public User update(String id, UpdateUserDto updateUserDto) {
+        Update update = new Update();
         if (updateUserDto.getEmail() != null) {
-            user.setEmail(updateUserDto.getEmail());
+            update.set("email", updateUserDto.getEmail());
         }
         if (updateUserDto.getName() != null) {
-            user.setName(updateUserDto.getName());
+            update.set("name", updateUserDto.getName());
         }
         if (updateUserDto.getSurname() != null) {
-            user.setSurname(updateUserDto.getSurname());
+            update.set("surname", updateUserDto.getSurname());
         }
         if (updateUserDto.getPhoneNumber() != null) {
-            user.setPhoneNumber(updateUserDto.getPhoneNumber());
+            update.set("phoneNumber", updateUserDto.getPhoneNumber());
         }
         if (updateUserDto.getImage() != null) {
-            user.setImage(updateUserDto.getImage());
+            update.set("image", updateUserDto.getImage());
+        }
+
+        if (update.getUpdateObject().isEmpty()) {
+            User user = findById(id);
+            if (user == null) {
+                throw new RuntimeException("User not found");
+            }
+            return user;
         }
 
-        return userRepository.save(user);
+        User updated = userRepository.updateFields(id, update);
+        if (updated == null) {
+            throw new RuntimeException("User not found");
+        }
+        return updated;
     }
 
     @Override
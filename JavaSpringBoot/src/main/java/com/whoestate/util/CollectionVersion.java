@@ -0,0 +1,64 @@
+package com.whoestate.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+// Cheap validator for a whole collection: newest updatedAt (one index entry) plus the estimated document count.
+// Inserts and updates move updatedAt forward, deletes change the count. A delete can leave the newest updatedAt where
+// it was, so collections get no Last-Modified; the ETag alone carries the version.
+public final class CollectionVersion {
+
+    private final String version;
+
+    private CollectionVersion(String version) {
+        this.version = version;
+    }
+
+    public static CollectionVersion of(MongoTemplate mongoTemplate, Class<?> entityClass) {
+        Query latest = new Query().with(Sort.by(Sort.Direction.DESC, "updatedAt")).limit(1);
+        latest.fields().include("updatedAt");
+        Document newest = mongoTemplate.findOne(latest, Document.class, mongoTemplate.getCollectionName(entityClass));
+        Date updatedAt = newest != null ? newest.getDate("updatedAt") : null;
+        long lastModified = updatedAt != null ? updatedAt.getTime() : 0;
+        long count = mongoTemplate.estimatedCount(entityClass);
+        return new CollectionVersion(Long.toHexString(lastModified) + "-" + Long.toHexString(count));
+    }
+
+    // Every page, filter and view of an endpoint is a different response, so the request path and its parameters
+    // (order-insensitive) are folded into the tag next to the collection version
+    public String etagFor(String path, Map<String, String[]> parameters) {
+        StringBuilder request = new StringBuilder(path);
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(parameters).entrySet()) {
+            request.append('\u0000').append(parameter.getKey());
+            for (String value : parameter.getValue()) {
+                request.append('\u0001').append(value);
+            }
+        }
+        return "\"" + version + "-" + digest(request.toString()) + "\"";
+    }
+
+    // For collections whose bodies carry values that change without moving updatedAt (property view counts): the tag
+    // only promises an equivalent response, and such values may be as stale as the client's copy
+    public String weakEtagFor(String path, Map<String, String[]> parameters) {
+        return "W/" + etagFor(path, parameters);
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.whoestate.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// RFC 4180 counterpart of CsvReader: fields holding commas, quotes or line breaks are quoted, quotes doubled.
+// Records end with CRLF as the RFC asks; null fields are written empty.
+public final class CsvWriter {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRecord(List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    // Streams one record per element straight from a Mongo cursor, like JsonStreaming does for JSON
+    public static <T> StreamingResponseBody body(List<String> header, Function<T, List<String>> record,
+                                                 Supplier<Stream<T>> source) {
+        return out -> {
+            // Not closed: the servlet container owns the response stream
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            CsvWriter csv = new CsvWriter(writer);
+            try (Stream<T> stream = source.get()) {
+                csv.writeRecord(header);
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    csv.writeRecord(record.apply(iterator.next()));
+                }
+            }
+            writer.flush();
+        };
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null || field.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
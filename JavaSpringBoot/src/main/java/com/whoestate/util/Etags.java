@@ -0,0 +1,24 @@
+package com.whoestate.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public final class Etags {
+
+    private Etags() {
+    }
+
+    public static String forDocument(String id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + Long.toHexString(toEpochMilli(updatedAt)) + "\"";
+    }
+
+    // For documents with a counter that changes without touching updatedAt, so the tag still follows the body
+    public static String forDocument(String id, LocalDateTime updatedAt, Long counter) {
+        return "\"" + id + "-" + Long.toHexString(toEpochMilli(updatedAt)) + "-" + Long.toHexString(counter != null ? counter : 0L) + "\"";
+    }
+
+    // Spring Data stores LocalDateTime as a Date in the system zone, so convert the same way
+    public static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,30 @@
+package com.whoestate.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+// Auto index creation only ever adds indexes. One that was replaced by a differently keyed index stays on deployed
+// databases, costing a write on every insert and update, until it is dropped by name.
+public final class IndexCleanup {
+
+    private IndexCleanup() {
+    }
+
+    // Returns the names that were actually dropped
+    public static List<String> dropIfPresent(IndexOperations indexOps, String... names) {
+        Set<String> existing = indexOps.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+        List<String> dropped = new ArrayList<>();
+        for (String name : names) {
+            if (existing.contains(name)) {
+                indexOps.dropIndex(name);
+                dropped.add(name);
+            }
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,75 @@
+package com.whoestate.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Writes documents straight from a Mongo cursor to the response, one element at a time,
+// so memory use does not depend on how many documents are exported
+public final class JsonStreaming {
+
+    private JsonStreaming() {
+    }
+
+    public static boolean wantsNdjson(String accept) {
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    }
+
+    public static MediaType contentType(String accept) {
+        return wantsNdjson(accept) ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+    }
+
+    public static <T> StreamingResponseBody body(ObjectMapper objectMapper, String accept, Supplier<Stream<T>> source) {
+        return wantsNdjson(accept) ? ndjson(objectMapper, source) : jsonArray(objectMapper, source);
+    }
+
+    public static <T> StreamingResponseBody jsonArray(ObjectMapper objectMapper, Supplier<Stream<T>> source) {
+        return out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (Stream<T> stream = source.get(); JsonGenerator generator = createGenerator(objectMapper, out)) {
+                generator.writeStartArray();
+                Iterator<T> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    public static <T> StreamingResponseBody ndjson(ObjectMapper objectMapper, Supplier<Stream<T>> source) {
+        return out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (Stream<T> stream = source.get(); JsonGenerator generator = createGenerator(objectMapper, out)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                Iterator<T> iterator = stream.iterator();
+                boolean any = false;
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    any = true;
+                }
+                if (any) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
+
+    private static JsonGenerator createGenerator(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // The servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
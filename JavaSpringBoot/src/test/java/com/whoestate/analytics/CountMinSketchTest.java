@@ -0,0 +1,216 @@
+package com.whoestate.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CountMinSketchTest {
+
+    private static final int ZIPF_KEYS = 100_000;
+    private static final int ZIPF_VIEWS = 1_000_000;
+    private static final int TOP = 50;
+
+    // Key index per view, Zipf(1) over ZIPF_KEYS keys from a fixed seed: a few properties take most of the views
+    private static int[] zipfStream() {
+        double[] cumulative = new double[ZIPF_KEYS];
+        double sum = 0;
+        for (int key = 0; key < ZIPF_KEYS; key++) {
+            sum += 1.0 / (key + 1);
+            cumulative[key] = sum;
+        }
+        Random random = new Random(42);
+        int[] stream = new int[ZIPF_VIEWS];
+        for (int i = 0; i < ZIPF_VIEWS; i++) {
+            int found = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            stream[i] = Math.min(found >= 0 ? found : -found - 1, ZIPF_KEYS - 1);
+        }
+        return stream;
+    }
+
+    private static List<Integer> topKeys(int keys, Comparator<Integer> order) {
+        List<Integer> all = new ArrayList<>(keys);
+        for (int key = 0; key < keys; key++) {
+            all.add(key);
+        }
+        all.sort(order);
+        return all.subList(0, TOP);
+    }
+
+    @Test
+    void rejectsWidthThatIsNotAPowerOfTwo() {
+        assertThatThrownBy(() -> new CountMinSketch(4, 1000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unseenKeyEstimatesZero() {
+        assertThat(new CountMinSketch(4, 1024).estimate("property-1")).isZero();
+    }
+
+    @Test
+    void addReturnsTheEstimateAfterTheIncrement() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        assertThat(sketch.add("property-1")).isEqualTo(1);
+        assertThat(sketch.add("property-1")).isEqualTo(2);
+        assertThat(sketch.estimate("property-1")).isEqualTo(2);
+    }
+
+    // Without collisions the sketch is exact
+    @Test
+    void fewKeysInAWideSketchAreCountedExactly() {
+        CountMinSketch sketch = new CountMinSketch(4, 1 << 16);
+        for (int key = 0; key < 20; key++) {
+            for (int i = 0; i <= key; i++) {
+                sketch.add("property-" + key);
+            }
+        }
+        for (int key = 0; key < 20; key++) {
+            assertThat(sketch.estimate("property-" + key)).isEqualTo(key + 1);
+        }
+    }
+
+    // Never below the true count, and above it by more than e / width of the total for at most e^-depth of the keys
+    @Test
+    void estimatesNeverUndercountAndStayWithinTheErrorBound() {
+        int depth = 4;
+        int width = 1024;
+        CountMinSketch sketch = new CountMinSketch(depth, width);
+        int keys = 5_000;
+        int[] counts = new int[keys];
+        long total = 0;
+        for (int key = 0; key < keys; key++) {
+            // Skewed like real traffic: a few hot keys, a long tail of single views
+            counts[key] = key < 50 ? 200 : 1 + key % 3;
+            for (int i = 0; i < counts[key]; i++) {
+                sketch.add("property-" + key);
+            }
+            total += counts[key];
+        }
+
+        double bound = Math.E / width * total;
+        int outside = 0;
+        for (int key = 0; key < keys; key++) {
+            int estimate = sketch.estimate("property-" + key);
+            assertThat(estimate).isGreaterThanOrEqualTo(counts[key]);
+            if (estimate - counts[key] > bound) {
+                outside++;
+            }
+        }
+        assertThat((double) outside / keys).isLessThanOrEqualTo(Math.exp(-depth));
+    }
+
+    @Test
+    void hotKeysStandOutFromTheTail() {
+        CountMinSketch sketch = new CountMinSketch(4, 2048);
+        for (int key = 0; key < 10_000; key++) {
+            sketch.add("tail-" + key);
+        }
+        for (int i = 0; i < 500; i++) {
+            sketch.add("hot");
+        }
+        assertThat(sketch.estimate("hot")).isBetween(500, 500 + (int) (Math.E / 2048 * 10_500));
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch gate = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> {
+                    gate.await();
+                    for (int i = 0; i < perThread; i++) {
+                        sketch.add("property-1");
+                    }
+                    return null;
+                }));
+            }
+            gate.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(sketch.estimate("property-1")).isEqualTo(threads * perThread);
+    }
+
+    // Accuracy against memory over a skewed stream, for the width the trending tracker uses and its neighbours. The
+    // hot keys are what the trending rail shows, so their relative error and whether the sketch still ranks the true
+    // top ones first is what matters; the long tail only needs to stay out of the way
+    @Test
+    void accuracyVersusMemory() {
+        int depth = 4;
+        int[] stream = zipfStream();
+        int[] exact = new int[ZIPF_KEYS];
+        for (int key : stream) {
+            exact[key]++;
+        }
+        int seen = 0;
+        for (int count : exact) {
+            if (count > 0) {
+                seen++;
+            }
+        }
+        Set<Integer> exactTop = new HashSet<>(topKeys(ZIPF_KEYS, (a, b) -> Integer.compare(exact[b], exact[a])));
+        // An exact map needs an entry per distinct key: about 32 bytes for the node, 40 for the key string and
+        // 16 for the boxed count, plus the table slot
+        long exactBytes = seen * 92L;
+        System.out.println("Exact counts: " + seen + " keys, about " + exactBytes / 1024 + " KB");
+
+        double previousError = Double.MAX_VALUE;
+        for (int width : new int[] { 256, 1024, 2048, 8192 }) {
+            CountMinSketch sketch = new CountMinSketch(depth, width);
+            for (int key : stream) {
+                sketch.add("property-" + key);
+            }
+            int[] estimates = new int[ZIPF_KEYS];
+            long overcount = 0;
+            for (int key = 0; key < ZIPF_KEYS; key++) {
+                estimates[key] = sketch.estimate("property-" + key);
+                assertThat(estimates[key]).isGreaterThanOrEqualTo(exact[key]);
+                if (exact[key] > 0) {
+                    overcount += estimates[key] - exact[key];
+                }
+            }
+            double topError = 0;
+            for (int key : exactTop) {
+                topError += (double) (estimates[key] - exact[key]) / exact[key];
+            }
+            topError /= TOP;
+            int recalled = 0;
+            for (int key : topKeys(ZIPF_KEYS, (a, b) -> Integer.compare(estimates[b], estimates[a]))) {
+                if (exactTop.contains(key)) {
+                    recalled++;
+                }
+            }
+            System.out.printf("Count-Min %dx%d: %d KB, mean overcount %.1f views, top-%d error %.2f%%, top-%d recall %d/%d%n",
+                    depth, width, depth * width * 4 / 1024, (double) overcount / seen, TOP, topError * 100, TOP,
+                    recalled, TOP);
+
+            assertThat(topError).isLessThan(previousError);
+            previousError = topError;
+            if (width >= 2048) {
+                assertThat(topError).isLessThan(0.06);
+                assertThat(recalled).isGreaterThanOrEqualTo(TOP * 9 / 10);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.whoestate.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HyperLogLogTest {
+
+    private static HyperLogLog sketchOf(String prefix, int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add(prefix + i);
+        }
+        return sketch;
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    // 2^12 registers give about 1.6% standard error; 5% is beyond three standard errors
+    @ParameterizedTest
+    @ValueSource(ints = { 10, 100, 1_000, 10_000, 100_000, 1_000_000 })
+    void estimateStaysWithinErrorBound(int distinct) {
+        HyperLogLog sketch = sketchOf("user-", 0, distinct);
+        assertThat((double) sketch.estimate()).isCloseTo(distinct, within(Math.max(1.0, distinct * 0.05)));
+    }
+
+    @Test
+    void repeatedValuesDoNotRaiseTheEstimate() {
+        HyperLogLog sketch = sketchOf("user-", 0, 5_000);
+        long estimate = sketch.estimate();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5_000; i++) {
+                sketch.add("user-" + i);
+            }
+        }
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void smallSketchRoundTripsThroughSparseEncoding() {
+        HyperLogLog sketch = sketchOf("user-", 0, 200);
+        byte[] bytes = sketch.toBytes();
+
+        // Format byte, precision byte, then index (2 bytes) and value (1 byte) per non-empty register
+        assertThat(bytes[0]).isEqualTo((byte) 1);
+        assertThat(bytes.length).isLessThan(2 + 200 * 3 + 1);
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void largeSketchRoundTripsThroughDenseEncoding() {
+        HyperLogLog sketch = sketchOf("user-", 0, 50_000);
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes[0]).isEqualTo((byte) 2);
+        assertThat(bytes).hasSize(2 + 4096);
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void emptySketchRoundTrips() {
+        HyperLogLog restored = HyperLogLog.fromBytes(new HyperLogLog().toBytes());
+        assertThat(restored.estimate()).isZero();
+    }
+
+    @Test
+    void rejectsUnknownFormatAndPrecision() {
+        byte[] bytes = new HyperLogLog().toBytes();
+        bytes[1] = 14;
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(bytes)).isInstanceOf(IllegalArgumentException.class);
+
+        byte[] unknown = new HyperLogLog().toBytes();
+        unknown[0] = 7;
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(unknown)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void mergeIsIdempotent() {
+        HyperLogLog sketch = sketchOf("user-", 0, 20_000);
+        byte[] before = sketch.toBytes();
+
+        sketch.merge(sketch.copy());
+        assertThat(sketch.toBytes()).isEqualTo(before);
+
+        HyperLogLog other = sketchOf("user-", 10_000, 30_000);
+        sketch.merge(other);
+        byte[] once = sketch.toBytes();
+        sketch.merge(other);
+        assertThat(sketch.toBytes()).isEqualTo(once);
+    }
+
+    @Test
+    void mergeIsCommutative() {
+        HyperLogLog left = sketchOf("user-", 0, 15_000);
+        left.merge(sketchOf("user-", 5_000, 25_000));
+        HyperLogLog right = sketchOf("user-", 5_000, 25_000);
+        right.merge(sketchOf("user-", 0, 15_000));
+        assertThat(left.toBytes()).isEqualTo(right.toBytes());
+    }
+
+    // The union of overlapping sketches equals the sketch of the union, so overlap is not counted twice
+    @Test
+    void mergeOfOverlappingSketchesMatchesSketchOfUnion() {
+        HyperLogLog merged = sketchOf("user-", 0, 40_000);
+        merged.merge(sketchOf("user-", 20_000, 60_000));
+
+        assertThat(merged.toBytes()).isEqualTo(sketchOf("user-", 0, 60_000).toBytes());
+        assertThat((double) merged.estimate()).isCloseTo(60_000, within(60_000 * 0.05));
+    }
+
+    @Test
+    void mergeAfterRoundTripMatchesInMemoryMerge() {
+        HyperLogLog first = sketchOf("a-", 0, 300);
+        HyperLogLog second = sketchOf("b-", 0, 30_000);
+
+        HyperLogLog direct = first.copy();
+        direct.merge(second);
+        HyperLogLog restored = HyperLogLog.fromBytes(first.toBytes());
+        restored.merge(HyperLogLog.fromBytes(second.toBytes()));
+        assertThat(restored.toBytes()).isEqualTo(direct.toBytes());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        HyperLogLog sketch = sketchOf("user-", 0, 100);
+        HyperLogLog copy = sketch.copy();
+        for (int i = 100; i < 10_000; i++) {
+            copy.add("user-" + i);
+        }
+        assertThat(sketch.estimate()).isNotEqualTo(copy.estimate());
+        assertThat((double) sketch.estimate()).isCloseTo(100, within(5.0));
+    }
+}
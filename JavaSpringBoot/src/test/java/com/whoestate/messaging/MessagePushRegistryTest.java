@@ -0,0 +1,169 @@
+package com.whoestate.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.whoestate.entity.Message;
+import com.whoestate.repository.InboxEntryRepository;
+import com.whoestate.repository.MessageRepository;
+
+import reactor.core.Disposable;
+
+class MessagePushRegistryTest {
+
+    private static final int IDLE_CONNECTIONS = 10_000;
+
+    private MessageRepository messageRepository;
+    private MessagePushRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        registry = new MessagePushRegistry();
+        ReflectionTestUtils.setField(registry, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(registry, "inboxEntryRepository", mock(InboxEntryRepository.class));
+        ReflectionTestUtils.setField(registry, "bufferSize", 64);
+        ReflectionTestUtils.setField(registry, "heartbeatInterval", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(registry, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(registry, "replayLimit", 500);
+        ReflectionTestUtils.setField(registry, "pollOverlapMs", 5_000L);
+        registry.startHeartbeat();
+    }
+
+    private static Message message(String id, String senderId, String receiverId) {
+        Message message = new Message();
+        message.setId(id);
+        message.setSenderId(senderId);
+        message.setReceiverId(receiverId);
+        message.setContent("hello");
+        return message;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as(what).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // Idle connections cost a bounded buffer each and share one heartbeat timer, so 10k of them stay cheap, all get
+    // heartbeats, and a message still reaches only its participants
+    @Test
+    void tenThousandIdleConnectionsShareTheHeartbeat() throws Exception {
+        AtomicIntegerArray heartbeats = new AtomicIntegerArray(IDLE_CONNECTIONS);
+        AtomicIntegerArray messages = new AtomicIntegerArray(IDLE_CONNECTIONS);
+        List<Disposable> subscriptions = new ArrayList<>(IDLE_CONNECTIONS);
+
+        long before = usedHeap();
+        for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+            int connection = i;
+            subscriptions.add(registry.subscribe("user-" + i, null).subscribe(event -> {
+                if (event.comment() != null) {
+                    heartbeats.incrementAndGet(connection);
+                } else {
+                    messages.incrementAndGet(connection);
+                }
+            }));
+        }
+        long perConnection = (usedHeap() - before) / IDLE_CONNECTIONS;
+        System.out.println("Idle SSE connection: about " + perConnection + " bytes of heap each");
+
+        assertThat(registry.connectionCount()).isEqualTo(IDLE_CONNECTIONS);
+        assertThat(registry.userCount()).isEqualTo(IDLE_CONNECTIONS);
+        assertThat(perConnection).isLessThan(16 * 1024);
+        await("every connection got a heartbeat", () -> {
+            for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+                if (heartbeats.get(i) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        });
+
+        registry.publish(message("m1", "user-7", "user-4242"));
+        await("the participants got the message", () -> messages.get(7) == 1 && messages.get(4242) == 1);
+        for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+            if (i != 7 && i != 4242) {
+                assertThat(messages.get(i)).isZero();
+            }
+        }
+
+        subscriptions.forEach(Disposable::dispose);
+        assertThat(registry.connectionCount()).isZero();
+        assertThat(registry.userCount()).isZero();
+    }
+
+    @Test
+    void pollPushesMessagesWrittenOnOtherNodesOnce() throws Exception {
+        Message local = message("local", "user-2", "user-1");
+        Message remote = message("remote", "user-3", "user-1");
+        when(messageRepository.streamByCreatedAtGreaterThanEqualOrderByCreatedAtAsc(any()))
+                .thenAnswer(invocation -> Stream.of(local, remote));
+        List<String> received = new ArrayList<>();
+        Disposable subscription = registry.subscribe("user-1", null)
+                .filter(event -> "message".equals(event.event()))
+                .map(ServerSentEvent::id)
+                .subscribe(id -> {
+                    synchronized (received) {
+                        received.add(id);
+                    }
+                });
+
+        registry.publish(local);
+        registry.pollOtherNodes();
+        registry.pollOtherNodes();
+
+        await("both messages arrived", () -> {
+            synchronized (received) {
+                return received.size() >= 2;
+            }
+        });
+        Thread.sleep(100);
+        synchronized (received) {
+            assertThat(received).hasSize(2);
+        }
+        assertThat(registry.publishedCount()).isEqualTo(2);
+        subscription.dispose();
+    }
+
+    @Test
+    void pollSkipsTheQueryWithoutOpenConnections() {
+        registry.pollOtherNodes();
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void refusesConnectionsBeyondThePerUserLimit() {
+        Disposable first = registry.subscribe("user-1", null).subscribe();
+        Disposable second = registry.subscribe("user-1", null).subscribe();
+
+        assertThatThrownBy(() -> registry.subscribe("user-1", null)).isInstanceOf(TooManyStreamsException.class);
+        first.dispose();
+        second.dispose();
+    }
+}
@@ -0,0 +1,125 @@
+package com.whoestate.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.whoestate.entity.TrackView;
+
+// Many flushers upserting the same (user, property) pair at once must still leave exactly one document holding every
+// view: the unique pair index turns the losing inserts into duplicate key errors, which upsertViews retries as updates
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class TrackViewRepositoryConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 50;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private TrackViewRepository trackViewRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void reset() {
+        mongoTemplate.dropCollection(TrackView.class);
+        trackViewRepository.ensureUniquePairIndex();
+    }
+
+    @Test
+    void concurrentUpsertsOfOnePairLeaveOneDocument() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 12, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                mongoTemplate.remove(new Query(), TrackView.class);
+                CountDownLatch gate = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    LocalDateTime viewedAt = start.plusSeconds(thread);
+                    futures.add(executor.submit(() -> {
+                        gate.await();
+                        trackViewRepository.upsertViews(List.of(view("user-1", "property-1", viewedAt, 2L)));
+                        return null;
+                    }));
+                }
+                gate.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+
+                List<TrackView> stored = mongoTemplate.find(new Query(Criteria.where("userId").is("user-1")
+                        .and("propertyId").is("property-1")), TrackView.class);
+                assertThat(stored).hasSize(1);
+                assertThat(stored.get(0).getViewCount()).isEqualTo(2L * THREADS);
+                assertThat(stored.get(0).getViewedAt()).isEqualTo(start.plusSeconds(THREADS - 1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentBatchesSharingPairsKeepOneDocumentPerPair() throws Exception {
+        LocalDateTime viewedAt = LocalDateTime.of(2024, 6, 1, 12, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch gate = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    List<TrackView> batch = new ArrayList<>();
+                    for (int property = 0; property < 20; property++) {
+                        batch.add(view("user-1", "property-" + property, viewedAt, 1L));
+                    }
+                    gate.await();
+                    trackViewRepository.upsertViews(batch);
+                    return null;
+                }));
+            }
+            gate.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<TrackView> stored = mongoTemplate.findAll(TrackView.class);
+        assertThat(stored).hasSize(20);
+        assertThat(stored).allSatisfy(view -> assertThat(view.getViewCount()).isEqualTo((long) THREADS));
+    }
+
+    private static TrackView view(String userId, String propertyId, LocalDateTime viewedAt, long viewCount) {
+        TrackView view = new TrackView();
+        view.setUserId(userId);
+        view.setPropertyId(propertyId);
+        view.setViewedAt(viewedAt);
+        view.setViewCount(viewCount);
+        return view;
+    }
+}
@@ -0,0 +1,118 @@
+package com.whoestate.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.whoestate.dto.TrackViewStorageStatsDto;
+import com.whoestate.entity.TrackView;
+import com.whoestate.entity.TrackViewBucket;
+
+// The same views stored both ways: one document per (user, property) against per-property, per-day buckets. Reports
+// collection and index size and the time to read one busy property's viewers from each, and checks both layouts
+// return the same views while the buckets keep far fewer documents and index entries
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class TrackViewStorageBenchmarkTest {
+
+    private static final int PROPERTIES = 200;
+    private static final int VIEWERS_PER_PROPERTY = 500;
+    private static final int HOT_VIEWERS = 20_000;
+    private static final int DAYS = 30;
+    private static final int ROUNDS = 5;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private TrackViewRepository trackViewRepository;
+
+    @Autowired
+    private TrackViewBucketRepository trackViewBucketRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Removes rather than drops, so the indexes created at startup stay and count towards the sizes
+    @BeforeEach
+    void load() {
+        mongoTemplate.remove(new Query(), TrackView.class);
+        mongoTemplate.remove(new Query(), TrackViewBucket.class);
+        trackViewRepository.ensureUniquePairIndex();
+
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 0, 0);
+        List<TrackView> batch = new ArrayList<>();
+        for (int property = 0; property < PROPERTIES; property++) {
+            int viewers = property == 0 ? HOT_VIEWERS : VIEWERS_PER_PROPERTY;
+            for (int viewer = 0; viewer < viewers; viewer++) {
+                batch.add(view("user-" + viewer, "property-" + property,
+                        start.plusDays(viewer % DAYS).plusMinutes(viewer % 1_440)));
+                if (batch.size() == 5_000) {
+                    store(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        store(batch);
+    }
+
+    @Test
+    void bucketsKeepFewerDocumentsAndIndexEntries() {
+        List<TrackView> fromDocuments = trackViewRepository.findByPropertyId("property-0");
+        List<TrackView> fromBuckets = trackViewBucketRepository.findViewsByPropertyId("property-0");
+        long documentsNanos = bestOf(() -> trackViewRepository.findByPropertyId("property-0"));
+        long bucketsNanos = bestOf(() -> trackViewBucketRepository.findViewsByPropertyId("property-0"));
+
+        TrackViewStorageStatsDto documents = trackViewBucketRepository.storageStats(TrackView.class);
+        TrackViewStorageStatsDto buckets = trackViewBucketRepository.storageStats(TrackViewBucket.class);
+        for (TrackViewStorageStatsDto stats : List.of(documents, buckets)) {
+            System.out.println(stats.getCollection() + ": " + stats.getDocuments() + " documents, "
+                    + stats.getDataSize() / 1024 + " KB data, " + stats.getTotalIndexSize() / 1024 + " KB indexes");
+        }
+        System.out.println("Viewers of a property with " + HOT_VIEWERS + " views: per-pair documents "
+                + documentsNanos / 1_000_000 + " ms, buckets " + bucketsNanos / 1_000_000 + " ms");
+
+        assertThat(fromBuckets).hasSameSizeAs(fromDocuments).hasSize(HOT_VIEWERS);
+        assertThat(buckets.getDocuments()).isLessThan(documents.getDocuments() / 10);
+        assertThat(buckets.getTotalIndexSize()).isLessThan(documents.getTotalIndexSize());
+    }
+
+    private void store(List<TrackView> views) {
+        mongoTemplate.insert(views, TrackView.class);
+        trackViewBucketRepository.pushViews(views);
+    }
+
+    private static long bestOf(Supplier<List<TrackView>> read) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            read.get();
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        return best;
+    }
+
+    private static TrackView view(String userId, String propertyId, LocalDateTime viewedAt) {
+        TrackView view = new TrackView();
+        view.setUserId(userId);
+        view.setPropertyId(propertyId);
+        view.setViewedAt(viewedAt);
+        view.setViewCount(1L);
+        return view;
+    }
+}
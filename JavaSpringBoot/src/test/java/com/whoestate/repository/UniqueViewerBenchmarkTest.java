@@ -0,0 +1,126 @@
+package com.whoestate.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.whoestate.analytics.HyperLogLog;
+import com.whoestate.entity.TrackView;
+import com.whoestate.entity.UniqueViewerSketch;
+
+// Unique viewers of one busy property over a month, answered by the exact distinct-userId aggregation over the raw
+// views and by unioning the stored per-day sketches. The sketch read touches one small document per day however many
+// views there were, and must stay within the sketch's error bound of the exact answer
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class UniqueViewerBenchmarkTest {
+
+    private static final String PROPERTY_ID = "property-1";
+    private static final int DAYS = 30;
+    private static final int VIEWERS = 100_000;
+    private static final int VIEWS = 300_000;
+    private static final int ROUNDS = 5;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private UniqueViewerSketchRepository uniqueViewerSketchRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final LocalDate firstDay = LocalDate.of(2024, 6, 1);
+
+    @BeforeEach
+    void load() {
+        mongoTemplate.dropCollection(TrackView.class);
+        mongoTemplate.dropCollection(UniqueViewerSketch.class);
+
+        Map<String, HyperLogLog> byDay = new HashMap<>();
+        List<TrackView> batch = new ArrayList<>();
+        for (int i = 0; i < VIEWS; i++) {
+            // Skewed like real traffic: a third of the views come from the first thousand viewers
+            int viewer = i % 3 == 0 ? i % 1_000 : i % VIEWERS;
+            LocalDateTime viewedAt = firstDay.plusDays(i % DAYS).atTime(12, 0).plusSeconds(i % 3_600);
+            TrackView view = new TrackView();
+            view.setUserId("user-" + viewer);
+            view.setPropertyId(PROPERTY_ID);
+            view.setViewedAt(viewedAt);
+            view.setViewCount(1L);
+            batch.add(view);
+            byDay.computeIfAbsent(viewedAt.toLocalDate().toString(), day -> new HyperLogLog()).add(view.getUserId());
+            if (batch.size() == 10_000) {
+                mongoTemplate.insert(batch, TrackView.class);
+                batch.clear();
+            }
+        }
+        mongoTemplate.insert(batch, TrackView.class);
+        byDay.forEach((day, sketch) -> uniqueViewerSketchRepository.mergeSketch(PROPERTY_ID, day, sketch));
+    }
+
+    @Test
+    void sketchesAnswerWithinTheErrorBoundWithoutScanningViews() {
+        LocalDate lastDay = firstDay.plusDays(DAYS - 1);
+
+        long exact = 0;
+        long exactNanos = Long.MAX_VALUE;
+        long estimate = 0;
+        long sketchNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            exact = exactUniques(firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay());
+            exactNanos = Math.min(exactNanos, System.nanoTime() - started);
+
+            started = System.nanoTime();
+            HyperLogLog total = new HyperLogLog();
+            for (UniqueViewerSketch stored : uniqueViewerSketchRepository.findByPropertyIdAndDayRange(PROPERTY_ID,
+                    firstDay.toString(), lastDay.toString())) {
+                total.merge(HyperLogLog.fromBytes(stored.getSketch()));
+            }
+            estimate = total.estimate();
+            sketchNanos = Math.min(sketchNanos, System.nanoTime() - started);
+        }
+
+        long sketchBytes = 0;
+        for (UniqueViewerSketch stored : uniqueViewerSketchRepository.findAll()) {
+            sketchBytes += stored.getSketch().length;
+        }
+        System.out.println("Unique viewers over " + DAYS + " days of " + VIEWS + " views: exact " + exact + " in "
+                + exactNanos / 1_000_000 + " ms, sketches " + estimate + " in " + sketchNanos / 1_000_000 + " ms from "
+                + sketchBytes + " bytes");
+
+        assertThat(exact).isEqualTo(VIEWERS);
+        assertThat((double) estimate).isCloseTo(exact, within(exact * 0.05));
+        assertThat(sketchBytes).isLessThanOrEqualTo(DAYS * (2L + 4096));
+    }
+
+    private long exactUniques(LocalDateTime from, LocalDateTime to) {
+        Aggregation distinct = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("propertyId").is(PROPERTY_ID).and("viewedAt").gte(from).lt(to)),
+                Aggregation.group("userId"),
+                Aggregation.count().as("uniques"));
+        Document result = mongoTemplate.aggregate(distinct, TrackView.class, Document.class).getUniqueMappedResult();
+        return result != null ? ((Number) result.get("uniques")).longValue() : 0;
+    }
+}
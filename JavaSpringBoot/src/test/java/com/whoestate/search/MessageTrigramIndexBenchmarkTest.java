@@ -0,0 +1,90 @@
+package com.whoestate.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import com.whoestate.entity.Message;
+
+// Index build time, heap and query latency for message search. The default run indexes 200k messages so it fits the
+// regular test heap and time; the 10M figures come from the same test with
+// mvn test -Dtest=MessageTrigramIndexBenchmarkTest -Dbenchmark.messages=10000000 -DargLine=-Xmx5g
+class MessageTrigramIndexBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("benchmark.messages", 200_000);
+    private static final int USERS = Math.max(100, MESSAGES / 50);
+    private static final int QUERIES = 200;
+    private static final String[] WORDS = { "apartment", "balcony", "kadikoy", "besiktas", "deposit", "viewing",
+            "friday", "garden", "parking", "contract", "furnished", "landlord", "rent", "sea", "view", "kitchen",
+            "renovated", "elevator", "heating", "metro", "school", "price", "negotiable", "keys", "tomorrow", "evening" };
+
+    private static Message message(int number, Random random) {
+        StringBuilder content = new StringBuilder();
+        int words = 6 + random.nextInt(10);
+        for (int i = 0; i < words; i++) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        content.append(number);
+        Message message = new Message();
+        message.setId("m" + number);
+        message.setSenderId("u" + random.nextInt(USERS));
+        message.setReceiverId("u" + random.nextInt(USERS));
+        message.setContent(content.toString());
+        return message;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Median and 99th percentile in microseconds
+    private static String latency(String label, IntFunction<Integer> query) {
+        long[] micros = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long started = System.nanoTime();
+            query.apply(i);
+            micros[i] = (System.nanoTime() - started) / 1_000;
+        }
+        Arrays.sort(micros);
+        return label + " p50 " + micros[QUERIES / 2] + " us, p99 " + micros[QUERIES * 99 / 100] + " us";
+    }
+
+    @Test
+    void buildHeapAndQueryLatency() {
+        Random random = new Random(42);
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        long before = usedHeap();
+        long started = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            index.index(message(i, random));
+        }
+        long buildMs = (System.nanoTime() - started) / 1_000_000;
+        long heap = usedHeap() - before;
+        System.out.println("Indexed " + MESSAGES + " messages in " + buildMs + " ms: " + index.postingBytes() / 1024
+                + " KB of postings, about " + heap / (1024 * 1024) + " MB of heap (" + heap / MESSAGES + " bytes each)");
+
+        // Warm up so the numbers are not dominated by the first calls being interpreted
+        for (int i = 0; i < QUERIES; i++) {
+            index.candidates(WORDS[i % WORDS.length], null, 0, 20);
+        }
+        System.out.println(latency("Substring, all messages:", i -> index.candidates(WORDS[i % WORDS.length] + " "
+                + WORDS[(i * 7 + 3) % WORDS.length], null, 0, 20).size()));
+        System.out.println(latency("Substring, one participant:", i -> index.candidates(WORDS[i % WORDS.length],
+                "u" + (i * 31 % USERS), 0, 20).size()));
+        System.out.println(latency("Typo, all messages:", i -> index.candidates("balkony", null, 3, 20).size()));
+        System.out.println(latency("Rare id, all messages:", i -> index.candidates(" " + (MESSAGES - 1 - i),
+                null, 0, 20).size()));
+
+        assertThat(index.size()).isEqualTo(MESSAGES);
+        assertThat(index.candidates(" " + (MESSAGES - 1), null, 0, 20)).contains("m" + (MESSAGES - 1));
+        assertThat(index.candidates("kadikoy", "u1", 0, 20)).isNotEmpty();
+    }
+}
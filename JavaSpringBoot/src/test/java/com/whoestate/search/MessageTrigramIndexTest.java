@@ -0,0 +1,240 @@
+package com.whoestate.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.whoestate.entity.Message;
+
+class MessageTrigramIndexTest {
+
+    private static Message message(String id, String senderId, String receiverId, String content) {
+        Message message = new Message();
+        message.setId(id);
+        message.setSenderId(senderId);
+        message.setReceiverId(receiverId);
+        message.setContent(content);
+        return message;
+    }
+
+    private static void compactFully(MessageTrigramIndex index) {
+        int steps = 0;
+        while (index.compactStep()) {
+            steps++;
+            assertThat(steps).isLessThan(1_000);
+        }
+    }
+
+    @Test
+    void findsSubstringsInsideWordsIgnoringCaseAndAccents() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        index.index(message("m1", "u1", "u2", "Is the apartment in Kadıköy still available?"));
+        index.index(message("m2", "u2", "u1", "Yes, the ŞİŞLİ flat too"));
+        index.index(message("m3", "u1", "u3", "Garden view villa"));
+
+        assertThat(index.candidates("kadikoy", null, 0, 10)).containsExactly("m1");
+        assertThat(index.candidates("partmen", null, 0, 10)).containsExactly("m1");
+        assertThat(index.candidates("sisli", null, 0, 10)).containsExactly("m2");
+        assertThat(index.candidates("penthouse", null, 0, 10)).isEmpty();
+        assertThat(index.candidates("ab", null, 0, 10)).isEmpty();
+    }
+
+    // Candidates only promise every trigram is present; the caller verifies the substring against the stored content
+    @Test
+    void allTrigramsPresentIsACandidateEvenWithoutTheSubstring() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        index.index(message("m1", "u1", "u2", "abcd xbcdy"));
+        index.index(message("m2", "u1", "u2", "abcde"));
+
+        List<String> candidates = index.candidates("abcdy", null, 0, 10);
+        assertThat(candidates).contains("m1");
+        assertThat(candidates).doesNotContain("m2");
+
+        String query = MessageTrigramIndex.normalize("abcdy").trim();
+        assertThat(MessageTrigramIndex.normalize("abcd xbcdy")).doesNotContain(query);
+    }
+
+    @Test
+    void fuzzyToleratesATypoAndRanksCloserMatchesFirst() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        index.index(message("m1", "u1", "u2", "balcony with sea view"));
+        index.index(message("m2", "u1", "u2", "balkony facing the garden"));
+        index.index(message("m3", "u1", "u2", "parking space"));
+
+        assertThat(index.candidates("balkony", null, 0, 10)).containsExactly("m2");
+        List<String> fuzzy = index.candidates("balkony", null, 3, 10);
+        assertThat(fuzzy).containsExactly("m2", "m1");
+    }
+
+    @Test
+    void newestMatchesComeFirst() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        for (int i = 0; i < 10; i++) {
+            index.index(message("m" + i, "u1", "u2", "viewing on friday " + i));
+        }
+        assertThat(index.candidates("friday", null, 0, 3)).containsExactly("m9", "m8", "m7");
+        assertThat(index.candidates("friday", "u2", 0, 3)).containsExactly("m9", "m8", "m7");
+    }
+
+    @Test
+    void participantLimitsResultsToTheUsersMessages() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        index.index(message("m1", "u1", "u2", "deposit paid"));
+        index.index(message("m2", "u3", "u1", "deposit received"));
+        index.index(message("m3", "u2", "u3", "deposit pending"));
+        index.index(message("m4", "u4", "u4", "deposit note to self"));
+
+        assertThat(index.candidates("deposit", "u1", 0, 10)).containsExactlyInAnyOrder("m1", "m2");
+        assertThat(index.candidates("deposit", "u3", 0, 10)).containsExactlyInAnyOrder("m2", "m3");
+        assertThat(index.candidates("deposit", "u4", 0, 10)).containsExactly("m4");
+        assertThat(index.candidates("deposit", "unknown", 0, 10)).isEmpty();
+    }
+
+    // Gaps above 127 and 16383 take two and three varint bytes
+    @Test
+    void postingsRoundTripMultiByteGaps() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        int[] rareAt = { 0, 1, 129, 300, 16_800, 16_801 };
+        int next = 0;
+        for (int doc = 0; doc <= rareAt[rareAt.length - 1]; doc++) {
+            boolean rare = next < rareAt.length && rareAt[next] == doc;
+            if (rare) {
+                next++;
+            }
+            index.index(message("m" + doc, "u" + (doc % 1000), "u1000", rare ? "qzx" : "a"));
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int i = rareAt.length - 1; i >= 0; i--) {
+            expected.add("m" + rareAt[i]);
+        }
+        assertThat(index.candidates("qzx", null, 0, 10)).containsExactlyElementsOf(expected);
+        assertThat(index.candidates("qzx", "u1000", 0, 10)).containsExactlyElementsOf(expected);
+    }
+
+    // A user with a handful of messages among many others is answered by probing the long lists through their skips
+    @Test
+    void probingLongPostingListsFindsTheUsersMessages() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        List<String> expected = new ArrayList<>();
+        for (int doc = 0; doc < 20_000; doc++) {
+            boolean mine = doc % 997 == 0 || doc == 64 || doc == 65 || doc == 19_999;
+            index.index(message("m" + doc, mine ? "me" : "other" + (doc % 50), "agent",
+                    "is the flat still available " + doc));
+            if (mine) {
+                expected.add(0, "m" + doc);
+            }
+        }
+
+        assertThat(index.candidates("available", "me", 0, 100)).containsExactlyElementsOf(expected);
+        assertThat(index.candidates("flat still", "me", 0, 100)).containsExactlyElementsOf(expected);
+        assertThat(index.candidates("unavailable", "me", 0, 100)).isEmpty();
+    }
+
+    @Test
+    void removedMessagesAreNotReturned() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        index.index(message("m1", "u1", "u2", "keys are with the doorman"));
+        index.index(message("m2", "u1", "u2", "keys under the mat"));
+        index.remove("m1");
+        index.remove("missing");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.contains("m1")).isFalse();
+        assertThat(index.candidates("keys", null, 0, 10)).containsExactly("m2");
+        assertThat(index.candidates("keys", "u1", 0, 10)).containsExactly("m2");
+    }
+
+    @Test
+    void reindexingReplacesTheOldContent() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        index.index(message("m1", "u1", "u2", "meet at noon"));
+        index.index(message("m1", "u1", "u2", "meet at dusk"));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.candidates("noon", null, 0, 10)).isEmpty();
+        assertThat(index.candidates("dusk", "u1", 0, 10)).containsExactly("m1");
+    }
+
+    @Test
+    void compactionIsOnlyDueOnceDeletesPileUp() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        for (int i = 0; i < 100; i++) {
+            index.index(message("m" + i, "u1", "u2", "offer " + i));
+        }
+        for (int i = 0; i < 20; i++) {
+            index.remove("m" + i);
+        }
+        assertThat(index.compactStep()).isFalse();
+
+        for (int i = 20; i < 30; i++) {
+            index.remove("m" + i);
+        }
+        assertThat(index.compactStep()).isTrue();
+    }
+
+    @Test
+    void compactionShrinksPostingsAndKeepsResults() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        for (int i = 0; i < 5_000; i++) {
+            index.index(message("m" + i, "u" + (i % 7), "u" + (i % 11), "renovated kitchen number " + i));
+        }
+        long before = index.postingBytes();
+        for (int i = 0; i < 5_000; i++) {
+            if (i % 3 != 0) {
+                index.remove("m" + i);
+            }
+        }
+        List<String> expected = index.candidates("kitchen", "u3", 0, 5_000);
+        List<String> expectedFuzzy = index.candidates("kitchan", null, 3, 50);
+
+        compactFully(index);
+
+        assertThat(index.postingBytes()).isLessThan(before / 2);
+        assertThat(index.size()).isEqualTo(1_667);
+        assertThat(index.candidates("kitchen", "u3", 0, 5_000)).containsExactlyElementsOf(expected);
+        assertThat(index.candidates("kitchan", null, 3, 50)).containsExactlyElementsOf(expectedFuzzy);
+        assertThat(index.candidates("number 4997", null, 0, 10)).doesNotContain("m4997");
+        assertThat(index.candidates("number 4998", null, 0, 10)).containsExactly("m4998");
+    }
+
+    // Messages indexed and removed while a sweep is half done must come out right once it finishes
+    @Test
+    void writesDuringASweepAreKept() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        for (int i = 0; i < 1_000; i++) {
+            index.index(message("m" + i, "u1", "u2", "signed lease " + i));
+        }
+        for (int i = 0; i < 500; i++) {
+            index.remove("m" + i);
+        }
+        assertThat(index.compactStep()).isTrue();
+
+        index.index(message("late", "u1", "u3", "signed lease late"));
+        index.remove("m999");
+        compactFully(index);
+
+        assertThat(index.candidates("lease late", "u1", 0, 10)).containsExactly("late");
+        assertThat(index.candidates("lease 999", null, 0, 10)).isEmpty();
+        assertThat(index.candidates("signed", null, 0, 1_000)).hasSize(500);
+        assertThat(index.candidates("signed", "u1", 0, 1_000)).hasSize(500).startsWith("late");
+    }
+
+    @Test
+    void clearResetsReadiness() {
+        MessageTrigramIndex index = new MessageTrigramIndex();
+        assertThat(index.isReady()).isFalse();
+        index.index(message("m1", "u1", "u2", "hello there"));
+        index.markReady();
+        assertThat(index.isReady()).isTrue();
+
+        index.clear();
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.size()).isZero();
+        assertThat(index.postingBytes()).isZero();
+        assertThat(index.candidates("hello", null, 0, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,129 @@
+package com.whoestate.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.whoestate.entity.Property;
+
+class PropertyTextIndexTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    private static Property property(String id, String title, String description) {
+        Property property = new Property();
+        property.setId(id);
+        property.setTitle(title);
+        property.setDescription(description);
+        property.setUpdatedAt(UPDATED_AT);
+        return property;
+    }
+
+    @Test
+    void findsInflectedAndAccentedForms() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        index.index(property("p1", "Şişli'de satılık daire", "Metroya yakın, bahçeli"));
+        index.index(property("p2", "Kadıköy villa", "Deniz manzaralı"));
+
+        assertThat(index.search("sisli", 10)).containsExactly("p1");
+        assertThat(index.search("DAİRELER", 10)).containsExactly("p1");
+        assertThat(index.search("kadikoy denizi", 10)).containsExactly("p2");
+        assertThat(index.search("ofis", 10)).isEmpty();
+    }
+
+    @Test
+    void titleMatchesOutrankDescriptionMatches() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        index.index(property("description", "Geniş daire", "Bahçeli villa yakınında"));
+        index.index(property("title", "Bahçeli villa", "Geniş daire yakınında"));
+
+        assertThat(index.search("villa", 10)).containsExactly("title", "description");
+    }
+
+    // BM25 weighs a term by its rarity, so the property matching the rare term ranks first
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        for (int i = 0; i < 20; i++) {
+            index.index(property("common" + i, "Daire", "Merkezi konum"));
+        }
+        index.index(property("rare", "Havuz", "Merkezi konum"));
+
+        assertThat(index.search("daire havuz", 3).get(0)).isEqualTo("rare");
+    }
+
+    @Test
+    void shorterDocumentsRankFirstAtEqualFrequency() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        index.index(property("long", "Daire", "Metro otobüs market okul hastane park cami spor salonu"));
+        index.index(property("short", "Daire", "Metro"));
+
+        assertThat(index.search("daire", 10)).containsExactly("short", "long");
+    }
+
+    @Test
+    void limitKeepsTheBestMatches() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        index.index(property("p1", "Villa", "Villa villa havuz"));
+        index.index(property("p2", "Villa", "Bahçe"));
+        index.index(property("p3", "Daire", "Villa gibi"));
+
+        assertThat(index.search("villa", 2)).containsExactly("p1", "p2");
+        assertThat(index.search("villa", 0)).isEmpty();
+    }
+
+    @Test
+    void reindexingReplacesTheOldText() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        index.index(property("p1", "Daire", "Bahçeli"));
+        Property updated = property("p1", "Villa", "Havuzlu");
+        updated.setUpdatedAt(UPDATED_AT.plusMinutes(1));
+        index.index(updated);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("bahceli", 10)).isEmpty();
+        assertThat(index.search("villa", 10)).containsExactly("p1");
+        assertThat(index.isIndexedAt("p1", UPDATED_AT)).isFalse();
+        assertThat(index.isIndexedAt("p1", UPDATED_AT.plusMinutes(1))).isTrue();
+        assertThat(index.isIndexedAt("p2", UPDATED_AT)).isFalse();
+    }
+
+    // Repeated updates and deletes leave tombstones that are compacted away along the way; rankings must not change
+    @Test
+    void resultsSurviveCompaction() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        for (int i = 0; i < 100; i++) {
+            index.index(property("p" + i, "Daire " + i, i % 2 == 0 ? "Bahçeli" : "Havuzlu"));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                index.index(property("p" + i, "Daire " + i, i % 2 == 0 ? "Bahçeli" : "Havuzlu"));
+            }
+        }
+        for (int i = 50; i < 100; i++) {
+            index.remove("p" + i);
+        }
+
+        assertThat(index.size()).isEqualTo(50);
+        assertThat(index.search("havuzlu", 100)).hasSize(25).allMatch(id -> Integer.parseInt(id.substring(1)) % 2 == 1);
+        assertThat(index.search("bahceli", 100)).hasSize(25);
+        assertThat(index.search("42", 10)).containsExactly("p42");
+        assertThat(index.search("77", 10)).isEmpty();
+        assertThat(index.isIndexedAt("p10", UPDATED_AT)).isTrue();
+    }
+
+    @Test
+    void clearResetsReadiness() {
+        PropertyTextIndex index = new PropertyTextIndex();
+        index.index(property("p1", "Daire", "Bahçeli"));
+        index.markReady();
+        assertThat(index.isReady()).isTrue();
+
+        index.clear();
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.size()).isZero();
+        assertThat(index.search("daire", 10)).isEmpty();
+    }
+}
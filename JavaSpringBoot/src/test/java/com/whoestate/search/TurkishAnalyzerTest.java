@@ -0,0 +1,46 @@
+package com.whoestate.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TurkishAnalyzerTest {
+
+    @Test
+    void foldsTurkishCaseAndDiacritics() {
+        assertThat(TurkishAnalyzer.fold("İSTANBUL Şişli ÇAĞLAYAN")).isEqualTo("istanbul sisli caglayan");
+        assertThat(TurkishAnalyzer.fold("IŞIK Göztepe Üsküdar")).isEqualTo("isik goztepe uskudar");
+        assertThat(TurkishAnalyzer.fold("kâr hâlâ")).isEqualTo("kar hala");
+    }
+
+    @Test
+    void stripsInflectionalSuffixes() {
+        assertThat(TurkishAnalyzer.analyze("evler bahçeler")).containsExactly("ev", "bahce");
+        assertThat(TurkishAnalyzer.analyze("evlerinden odalarında")).containsExactly("ev", "oda");
+    }
+
+    // "site" must not lose "te", or it would match every word starting with "si"
+    @Test
+    void keepsShortWordsWhole() {
+        assertThat(TurkishAnalyzer.analyze("site daire")).containsExactly("site", "daire");
+    }
+
+    @Test
+    void dropsTheSuffixAfterAnApostrophe() {
+        assertThat(TurkishAnalyzer.analyze("Kadıköy'deki daire")).containsExactly("kadikoy", "daire");
+        assertThat(TurkishAnalyzer.analyze("Beşiktaş’ta satılık")).containsExactly("besiktas", "satilik");
+    }
+
+    @Test
+    void dropsStopWordsAndKeepsNumbers() {
+        assertThat(TurkishAnalyzer.analyze("Deniz ve orman için çok güzel, 2024 yapımı 3+1"))
+                .containsExactly("deniz", "orman", "guzel", "2024", "yapimi", "3", "1");
+    }
+
+    @Test
+    void emptyInputHasNoTerms() {
+        assertThat(TurkishAnalyzer.analyze(null)).isEmpty();
+        assertThat(TurkishAnalyzer.analyze("")).isEmpty();
+        assertThat(TurkishAnalyzer.analyze(" ,.; ")).isEmpty();
+    }
+}
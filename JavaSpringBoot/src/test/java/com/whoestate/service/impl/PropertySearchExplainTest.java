@@ -0,0 +1,145 @@
+package com.whoestate.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.whoestate.dto.PropertySearchDto;
+import com.whoestate.entity.Property;
+
+// Explains the search query for every combination of filters against the real index set and requires an index scan
+// that already yields the keyset order: no collection scan and no in-memory sort
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class PropertySearchExplainTest {
+
+    private static final String[] FILTERS = {
+            "city", "district", "type", "status", "price", "bedrooms", "bathrooms", "area" };
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void seed() {
+        mongoTemplate.dropCollection(Property.class);
+        IndexOperations indexOps = mongoTemplate.indexOps(Property.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Property.class)
+                .forEach(indexOps::ensureIndex);
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Property> properties = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Property property = new Property();
+            property.setTitle("Listing " + i);
+            property.setCity("City" + (i % 8));
+            property.setDistrict("District" + (i % 5));
+            property.setPropertyType(i % 3 == 0 ? "Apartment" : i % 3 == 1 ? "Villa" : "Land");
+            property.setPropertyStatus(i % 2 == 0 ? "Sale" : "Rent");
+            property.setPrice(50_000.0 + (i * 7919 % 1_000_000));
+            property.setBedrooms(i % 6);
+            property.setBathrooms(i % 3);
+            property.setArea(40 + i % 300);
+            property.setIsApproved(i % 4 != 0);
+            property.setCreatedAt(start.plusMinutes(i));
+            property.setUpdatedAt(start.plusMinutes(i));
+            properties.add(property);
+        }
+        mongoTemplate.insertAll(properties);
+    }
+
+    static Stream<Arguments> filterCombinations() {
+        return IntStream.range(0, 1 << FILTERS.length).mapToObj(mask -> {
+            List<String> names = new ArrayList<>();
+            for (int bit = 0; bit < FILTERS.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    names.add(FILTERS[bit]);
+                }
+            }
+            return Arguments.of(String.join("+", names), search(names));
+        });
+    }
+
+    @ParameterizedTest(name = "[{0}]")
+    @MethodSource("filterCombinations")
+    void searchUsesAnIndexInKeysetOrder(String filters, PropertySearchDto searchDto) {
+        Document filter = PropertyServiceImpl.buildSearchCriteria(searchDto).getCriteriaObject();
+        Document explain = mongoTemplate.getCollection("properties")
+                .find(filter)
+                .sort(new Document("createdAt", -1).append("_id", -1))
+                .limit(21)
+                .explain();
+
+        List<String> stages = new ArrayList<>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+        assertThat(stages).as("winning plan stages for [%s]", filters)
+                .contains("IXSCAN")
+                .doesNotContain("COLLSCAN", "SORT");
+    }
+
+    private static PropertySearchDto search(List<String> filters) {
+        PropertySearchDto searchDto = new PropertySearchDto();
+        if (filters.contains("city")) {
+            searchDto.setCity("City3");
+        }
+        if (filters.contains("district")) {
+            searchDto.setDistrict("District2");
+        }
+        if (filters.contains("type")) {
+            searchDto.setPropertyType("Villa");
+        }
+        if (filters.contains("status")) {
+            searchDto.setPropertyStatus("Sale");
+        }
+        if (filters.contains("price")) {
+            searchDto.setMinPrice(100_000.0);
+            searchDto.setMaxPrice(400_000.0);
+        }
+        if (filters.contains("bedrooms")) {
+            searchDto.setMinBedrooms(2);
+        }
+        if (filters.contains("bathrooms")) {
+            searchDto.setMinBathrooms(1);
+        }
+        if (filters.contains("area")) {
+            searchDto.setMinArea(80);
+            searchDto.setMaxArea(250);
+        }
+        return searchDto;
+    }
+
+    // Plans nest their input stages under inputStage, inputStages or (with the slot-based engine) queryPlan
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.whoestate.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecordsUntilEndOfInput() throws IOException {
+        assertThat(readAll("a,b,c\n1,2,3\n")).containsExactly(List.of("a", "b", "c"), List.of("1", "2", "3"));
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        assertThat(readAll("a,b\n1,2")).containsExactly(List.of("a", "b"), List.of("1", "2"));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(new CsvReader(new StringReader("")).next()).isNull();
+    }
+
+    @Test
+    void keepsEmptyFields() throws IOException {
+        assertThat(readAll(",x,,\n")).containsExactly(List.of("", "x", "", ""));
+    }
+
+    @Test
+    void quotedFieldsMayContainSeparatorsQuotesAndLineBreaks() throws IOException {
+        String csv = "\"Kadıköy, İstanbul\",\"say \"\"merhaba\"\"\",\"line one\r\nline two\"\n";
+
+        assertThat(readAll(csv)).containsExactly(List.of("Kadıköy, İstanbul", "say \"merhaba\"", "line one\r\nline two"));
+    }
+
+    @Test
+    void acceptsCrLfAndBareCrLineEndings() throws IOException {
+        assertThat(readAll("a,b\r\n1,2\r3,4\r\n"))
+                .containsExactly(List.of("a", "b"), List.of("1", "2"), List.of("3", "4"));
+    }
+
+    @Test
+    void skipsLeadingByteOrderMarkOnly() throws IOException {
+        assertThat(readAll("\uFEFFtitle,price\n\uFEFFx,1\n"))
+                .containsExactly(List.of("title", "price"), List.of("\uFEFFx", "1"));
+    }
+
+    @Test
+    void quoteInsideUnquotedFieldIsLiteral() throws IOException {
+        assertThat(readAll("5\"2,x\n")).containsExactly(List.of("5\"2", "x"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"never closed,\nstill open"));
+
+        assertThat(reader.next()).containsExactly("ok");
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readsBackWhatCsvWriterWrites() throws IOException {
+        List<List<String>> records = List.of(
+                List.of("id", "title", "notes"),
+                List.of("1", "Deniz manzaralı, 3+1", "He said \"yes\""),
+                List.of("2", "", "multi\nline\r\nnote"),
+                List.of("3", "=cmd", " padded "));
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (List<String> record : records) {
+            writer.writeRecord(record);
+        }
+
+        assertThat(readAll(out.toString())).isEqualTo(records);
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,59 @@
+package com.whoestate.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of(timestamp, "65f1c0ffee|with-separator").encode());
+
+        assertThat(decoded.getTimestamp()).isEqualTo(timestamp);
+        assertThat(decoded.getId()).isEqualTo("65f1c0ffee|with-separator");
+    }
+
+    @Test
+    void encodedTokenIsUrlSafe() {
+        String token = KeysetCursor.of(LocalDateTime.of(2024, 1, 1, 0, 0), "???>>>").encode();
+
+        assertThat(token).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void missingTokenMeansFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("no-separator"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("|id"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("2024-01-01T00:00|"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("yesterday|id"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void afterSelectsOlderTimestampsOrSameTimestampWithLowerId() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Document criteria = KeysetCursor.of(timestamp, "b").after("createdAt").getCriteriaObject();
+
+        assertThat(criteria.getList("$or", Document.class)).containsExactly(
+                new Document("createdAt", new Document("$lt", timestamp)),
+                new Document("createdAt", timestamp).append("id", new Document("$lt", "b")));
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}